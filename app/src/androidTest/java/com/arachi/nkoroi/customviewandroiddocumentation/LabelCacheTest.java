@@ -0,0 +1,71 @@
+package com.arachi.nkoroi.customviewandroiddocumentation;
+
+import android.graphics.Paint;
+import android.support.test.runner.AndroidJUnit4;
+import android.text.TextPaint;
+import com.arachi.nkoroi.piegeometry.SliceStore;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link LabelCache} fits labels to the label width when the data changes,
+ * and fits a label again only when it, the width or the font changed.
+ */
+@RunWith(AndroidJUnit4.class) public class LabelCacheTest {
+  private static final String LONG_LABEL = "A label far too long for the space beside the pie";
+
+  private static SliceStore store(String... labels) {
+    SliceStore store = new SliceStore();
+    for (String label : labels) {
+      store.add(label, 1, 0xff000000, 0xff000000);
+    }
+    store.layout();
+    return store;
+  }
+
+  @Test public void update_fitsMaxWidth() {
+    TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    paint.setTextSize(30);
+    float maxWidth = paint.measureText(LONG_LABEL) / 3;
+    LabelCache cache = new LabelCache(paint);
+    cache.update(store(LONG_LABEL, "B"), 0, maxWidth);
+
+    assertEquals(2, cache.size());
+    CharSequence text = cache.text(0);
+    assertTrue(text.length() < LONG_LABEL.length());
+    assertTrue(cache.width(0) <= maxWidth);
+    assertEquals(paint.measureText(text, 0, text.length()), cache.width(0), 0);
+
+    // Short labels are kept as they are.
+    assertEquals("B", cache.text(1).toString());
+  }
+
+  @Test public void update_refitsOnlyChangedLabels() {
+    TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    LabelCache cache = new LabelCache(paint);
+    cache.update(store(LONG_LABEL, "B", "C"), 0, 0);
+    CharSequence first = cache.text(0);
+    assertEquals(LONG_LABEL, first.toString());
+
+    cache.update(store(LONG_LABEL, "D"), 0, 0);
+    assertSame(first, cache.text(0));
+    assertEquals("D", cache.text(1).toString());
+    assertEquals(2, cache.size());
+
+    // A new width fits every label again.
+    cache.update(store(LONG_LABEL, "D"), 1, paint.measureText(LONG_LABEL) / 2);
+    assertFalse(LONG_LABEL.equals(cache.text(0).toString()));
+
+    // So does a new font.
+    first = cache.text(0);
+    paint.setTextSize(paint.getTextSize() / 2);
+    cache.invalidate();
+    assertEquals(0, cache.size());
+    cache.update(store(LONG_LABEL, "D"), 1, paint.measureText(LONG_LABEL) * 2);
+    assertNotSame(first, cache.text(0));
+    assertEquals(LONG_LABEL, cache.text(0).toString());
+  }
+}
@@ -0,0 +1,82 @@
+package com.arachi.nkoroi.customviewandroiddocumentation;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.MotionEvent;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that drawing, flinging and auto-centering a real chart don't allocate, as counted
+ * by its {@link FrameAllocationTracker}. The counts are only meaningful in debuggable
+ * builds, which test builds are.
+ */
+@RunWith(AndroidJUnit4.class) public class PieChartAllocationTest {
+  private static final int SIZE = 400;
+  private static final int SLICES = 36;
+
+  @Test public void drawFlingAndAutoCenter_doNotAllocate() throws Exception {
+    final PieChart[] chart = new PieChart[1];
+    final Canvas[] canvas = new Canvas[1];
+    final AtomicReference<CountDownLatch> settled =
+        new AtomicReference<CountDownLatch>(new CountDownLatch(1));
+    InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+      @Override public void run() {
+        chart[0] = PieChartFixture.newChart(SIZE, SLICES);
+        chart[0].setOnCurrentItemSettledListener(new PieChart.OnCurrentItemSettledListener() {
+          @Override public void onCurrentItemSettled(PieChart source, int currentItem) {
+            settled.get().countDown();
+          }
+        });
+        canvas[0] = new Canvas(Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888));
+        // The first frame creates the drawing caches, which is allowed.
+        chart[0].draw(canvas[0]);
+
+        chart[0].setAllocationTrackingEnabled(true);
+        chart[0].draw(canvas[0]);
+
+        // Drag quickly along the right edge of the pie and let go to start a fling.
+        long down = SystemClock.uptimeMillis();
+        float x = SIZE / 2 + SIZE * 3 / 8;
+        float y = SIZE / 2 + 100;
+        PieChartFixture.touch(chart[0], down, down, MotionEvent.ACTION_DOWN, x, y);
+        for (int i = 1; i <= 4; ++i) {
+          PieChartFixture.touch(chart[0], down, down + i * 10, MotionEvent.ACTION_MOVE, x,
+              y - i * 50);
+        }
+        PieChartFixture.touch(chart[0], down, down + 50, MotionEvent.ACTION_UP, x,
+            y - 200);
+      }
+    });
+    assertTrue(settled.get().await(5, TimeUnit.SECONDS));
+
+    settled.set(new CountDownLatch(1));
+    InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+      @Override public void run() {
+        // Auto-center on a slice across the pie.
+        chart[0].setCurrentItem((chart[0].getCurrentItem() + SLICES / 2) % SLICES);
+      }
+    });
+    assertTrue(settled.get().await(5, TimeUnit.SECONDS));
+
+    InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+      @Override public void run() {
+        chart[0].draw(canvas[0]);
+        FrameAllocationTracker tracker = chart[0].getAllocationTracker();
+        tracker.assertNoAllocations();
+        assertTrue(tracker.getFrameCount() > 2);
+        chart[0].setAllocationTrackingEnabled(false);
+      }
+    });
+  }
+}
@@ -0,0 +1,134 @@
+package com.arachi.nkoroi.customviewandroiddocumentation;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Manual benchmarks of {@link PieChart}. The timings depend on the device and on what else
+ * it is doing, so they are only logged, under the PieChartBench tag, for comparing two
+ * builds on the same device. Only how a timing grows with the data is asserted.
+ *
+ * The benchmarks are skipped unless the instrumentation argument benchmark is true:
+ *
+ *   ./gradlew connectedAndroidTest \
+ *       -Pandroid.testInstrumentationRunnerArguments.benchmark=true
+ */
+@RunWith(AndroidJUnit4.class) public class PieChartBenchmark {
+  private static final String TAG = "PieChartBench";
+  private static final int SIZE = 800;
+  private static final int SLICES = 500;
+  private static final int WARMUP_FRAMES = 20;
+  private static final int FRAMES = 200;
+  private static final int SMALL_LOAD = 1000;
+  private static final int LARGE_LOAD = 10 * SMALL_LOAD;
+  private static final int LOAD_ROUNDS = 7;
+
+  @Before public void onlyWhenAsked() {
+    assumeTrue("benchmarks run with the instrumentation argument benchmark=true",
+        "true".equals(InstrumentationRegistry.getArguments().getString("benchmark")));
+  }
+
+  /**
+   * Compare the frame time of the two pie render modes. Each mode draws the same chart
+   * into a software canvas, so this measures the cost of issuing the draw calls and
+   * rasterizing them on the CPU; hardware rendering moves the rasterizing to the GPU.
+   */
+  @Test public void renderModeFrameTime() throws Exception {
+    final long[] nanos = new long[2];
+    InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+      @Override public void run() {
+        PieChart chart = PieChartFixture.newChart(SIZE, SLICES);
+        Bitmap bitmap = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+
+        chart.setRenderMode(PieChart.RENDER_MODE_ARCS);
+        nanos[0] = averageFrameNanos(chart, canvas);
+        chart.setRenderMode(PieChart.RENDER_MODE_COMPOSITE);
+        nanos[1] = averageFrameNanos(chart, canvas);
+        bitmap.recycle();
+      }
+    });
+
+    Log.i(TAG, SLICES + " slices, software canvas: arcs " + nanos[0] / 1000
+        + "us/frame, composite " + nanos[1] / 1000 + "us/frame");
+  }
+
+  /**
+   * Time loading a data set through the chart, with setItems() and with a batch of
+   * addItem() calls, at two sizes. Each load has new values, so that every slice gets a
+   * new shader, and includes the data transition that the load starts.
+   */
+  @Test public void batchLoadScaling() throws Exception {
+    final long[] nanos = new long[4];
+    InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+      @Override public void run() {
+        PieChart chart = PieChartFixture.newChart(SIZE, SLICES);
+        chart.setDetailLevel(PieChart.DETAIL_LEVEL_FULL);
+        nanos[0] = bestLoadNanos(chart, SMALL_LOAD, false);
+        nanos[1] = bestLoadNanos(chart, LARGE_LOAD, false);
+        nanos[2] = bestLoadNanos(chart, SMALL_LOAD, true);
+        nanos[3] = bestLoadNanos(chart, LARGE_LOAD, true);
+      }
+    });
+
+    Log.i(TAG, "setItems: " + SMALL_LOAD + " items " + nanos[0] / 1000 + "us, "
+        + LARGE_LOAD + " items " + nanos[1] / 1000 + "us; batch: " + SMALL_LOAD + " items "
+        + nanos[2] / 1000 + "us, " + LARGE_LOAD + " items " + nanos[3] / 1000 + "us");
+    // Ten times the items should take about ten times as long, far from a hundred.
+    assertTrue("setItems of " + LARGE_LOAD + " items took " + nanos[1] + "ns vs "
+            + nanos[0] + "ns for " + SMALL_LOAD,
+        nanos[1] < Math.max(nanos[0], 1) * 40);
+    assertTrue("batch of " + LARGE_LOAD + " items took " + nanos[3] + "ns vs "
+            + nanos[2] + "ns for " + SMALL_LOAD,
+        nanos[3] < Math.max(nanos[2], 1) * 40);
+  }
+
+  private static long bestLoadNanos(PieChart chart, int count, boolean batch) {
+    String[] labels = PieChartFixture.labels(count);
+    float[] values = new float[count];
+    int[] colors = PieChartFixture.colors(count);
+    long best = Long.MAX_VALUE;
+    for (int round = 0; round < LOAD_ROUNDS; ++round) {
+      for (int i = 0; i < count; ++i) {
+        values[i] = 1 + (i + round) % LOAD_ROUNDS;
+      }
+      long start = System.nanoTime();
+      if (batch) {
+        chart.beginUpdate();
+        try {
+          chart.clear();
+          for (int i = 0; i < count; ++i) {
+            chart.addItem(labels[i], values[i], colors[i]);
+          }
+        } finally {
+          chart.endUpdate();
+        }
+      } else {
+        chart.setItems(labels, values, colors);
+      }
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return best;
+  }
+
+  private static long averageFrameNanos(PieChart chart, Canvas canvas) {
+    for (int i = 0; i < WARMUP_FRAMES; ++i) {
+      chart.draw(canvas);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < FRAMES; ++i) {
+      chart.draw(canvas);
+    }
+    return (System.nanoTime() - start) / FRAMES;
+  }
+}
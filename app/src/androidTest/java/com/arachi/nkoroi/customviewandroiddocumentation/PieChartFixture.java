@@ -0,0 +1,89 @@
+package com.arachi.nkoroi.customviewandroiddocumentation;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.support.test.InstrumentationRegistry;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * Builds the charts the instrumented tests work on. Call these on the main thread.
+ */
+final class PieChartFixture {
+  private PieChartFixture() {
+  }
+
+  /**
+   * Returns a chart without data, that is not laid out yet.
+   */
+  static PieChart newChart() {
+    return new PieChart(InstrumentationRegistry.getTargetContext());
+  }
+
+  /**
+   * Returns a square chart of the given size, laid out, with the given number of items
+   * from {@link #labels(int)}, {@link #values(int)} and {@link #colors(int)}.
+   */
+  static PieChart newChart(int size, int items) {
+    PieChart chart = newChart();
+    chart.setItems(labels(items), values(items), colors(items));
+    layout(chart, size);
+    return chart;
+  }
+
+  /**
+   * Measure and lay out the chart as a square of the given size.
+   */
+  static void layout(PieChart chart, int size) {
+    int spec = View.MeasureSpec.makeMeasureSpec(size, View.MeasureSpec.EXACTLY);
+    chart.measure(spec, spec);
+    chart.layout(0, 0, size, size);
+  }
+
+  /**
+   * Draw the chart into a new bitmap of its size, in software.
+   */
+  static Bitmap draw(PieChart chart) {
+    Bitmap bitmap = Bitmap.createBitmap(chart.getWidth(), chart.getHeight(),
+        Bitmap.Config.ARGB_8888);
+    chart.draw(new Canvas(bitmap));
+    return bitmap;
+  }
+
+  /**
+   * Send a single touch event straight to the chart.
+   */
+  static void touch(PieChart chart, long downTime, long eventTime, int action, float x,
+      float y) {
+    MotionEvent event = MotionEvent.obtain(downTime, eventTime, action, x, y, 0);
+    chart.onTouchEvent(event);
+    event.recycle();
+  }
+
+  static String[] labels(int count) {
+    String[] labels = new String[count];
+    for (int i = 0; i < count; ++i) {
+      labels[i] = "Slice " + i;
+    }
+    return labels;
+  }
+
+  /**
+   * Returns values from 1 to 5, so that the slices differ in size.
+   */
+  static float[] values(int count) {
+    float[] values = new float[count];
+    for (int i = 0; i < count; ++i) {
+      values[i] = 1 + i % 5;
+    }
+    return values;
+  }
+
+  static int[] colors(int count) {
+    int[] colors = new int[count];
+    for (int i = 0; i < count; ++i) {
+      colors[i] = 0xff000000 | (i * 0x10305);
+    }
+    return colors;
+  }
+}
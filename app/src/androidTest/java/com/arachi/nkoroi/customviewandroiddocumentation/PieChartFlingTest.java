@@ -0,0 +1,68 @@
+package com.arachi.nkoroi.customviewandroiddocumentation;
+
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.MotionEvent;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that data changes during a fling don't end the motion early.
+ */
+@RunWith(AndroidJUnit4.class) public class PieChartFlingTest {
+  private static final int SIZE = 400;
+  private static final int SLICES = 36;
+
+  @Test public void dataChange_duringFling_doesNotSettle() throws Exception {
+    final AtomicInteger settledCount = new AtomicInteger();
+    final CountDownLatch settled = new CountDownLatch(1);
+    final PieChart[] chart = new PieChart[1];
+    InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+      @Override public void run() {
+        chart[0] = PieChartFixture.newChart();
+        chart[0].setShowText(false);
+        chart[0].setItems(PieChartFixture.labels(SLICES), PieChartFixture.values(SLICES),
+            PieChartFixture.colors(SLICES));
+        PieChartFixture.layout(chart[0], SIZE);
+        chart[0].setOnCurrentItemSettledListener(new PieChart.OnCurrentItemSettledListener() {
+          @Override public void onCurrentItemSettled(PieChart source, int currentItem) {
+            settledCount.incrementAndGet();
+            settled.countDown();
+          }
+        });
+
+        // Drag quickly along the right edge of the pie and let go: that turns the pie
+        // across several slices and starts a fling.
+        long down = SystemClock.uptimeMillis();
+        float x = SIZE / 2 + SIZE * 3 / 8;
+        float y = SIZE / 2 + 100;
+        PieChartFixture.touch(chart[0], down, down, MotionEvent.ACTION_DOWN, x, y);
+        for (int i = 1; i <= 4; ++i) {
+          PieChartFixture.touch(chart[0], down, down + i * 10, MotionEvent.ACTION_MOVE, x,
+              y - i * 50);
+        }
+        PieChartFixture.touch(chart[0], down, down + 50, MotionEvent.ACTION_UP, x,
+            y - 200);
+
+        // Streaming updates arrive while the pie is still spinning.
+        for (int i = 0; i < 5; ++i) {
+          chart[0].updateItemValue(i, 2);
+        }
+        assertEquals(0, settledCount.get());
+      }
+    });
+
+    // The fling settles the pie once it ends.
+    assertTrue(settled.await(5, TimeUnit.SECONDS));
+    InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+    assertEquals(1, settledCount.get());
+  }
+}
@@ -0,0 +1,130 @@
+package com.arachi.nkoroi.customviewandroiddocumentation;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import com.arachi.nkoroi.piegeometry.SunburstTree;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link PieChart#sliceAt(float, float)} finds the slice drawn at a point,
+ * with and without rotation, and ignores the hole of a donut, and that
+ * {@link PieChart#nodeAt(float, float)} picks the sunburst ring by the distance from the
+ * center.
+ */
+@RunWith(AndroidJUnit4.class) public class PieChartHitTest {
+  private static final int SIZE = 400;
+
+  @Test public void sliceAt_followsRotation() throws Exception {
+    InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+      @Override public void run() {
+        PieChart chart = PieChartFixture.newChart();
+        chart.setShowText(false);
+        chart.setItems(new String[]{"A", "B", "C", "D"}, new float[]{1, 1, 1, 1},
+            new int[]{0xffff0000, 0xff00ff00, 0xff0000ff, 0xff000000});
+        PieChartFixture.layout(chart, SIZE);
+        chart.setPieRotation(0);
+
+        float c = SIZE / 2;
+        float d = SIZE / 8;
+        // Data angles go counterclockwise from the right, so A is at the top right.
+        assertEquals(0, chart.sliceAt(c + d, c - d));
+        assertEquals(1, chart.sliceAt(c - d, c - d));
+        assertEquals(2, chart.sliceAt(c - d, c + d));
+        assertEquals(3, chart.sliceAt(c + d, c + d));
+        assertEquals(-1, chart.sliceAt(1, 1));
+
+        // Turning the pie clockwise by 90 degrees brings B to the top right.
+        chart.setPieRotation(90);
+        assertEquals(1, chart.sliceAt(c + d, c - d));
+        assertEquals(0, chart.sliceAt(c + d, c + d));
+      }
+    });
+  }
+
+  @Test public void sliceAt_ignoresDonutHole() throws Exception {
+    InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+      @Override public void run() {
+        PieChart chart = PieChartFixture.newChart();
+        chart.setShowText(false);
+        chart.setInnerRadius(0.5f);
+        chart.setItems(new String[]{"A", "B"}, new float[]{1, 1},
+            new int[]{0xffff0000, 0xff00ff00});
+        PieChartFixture.layout(chart, SIZE);
+        chart.setPieRotation(0);
+
+        float c = SIZE / 2;
+        // The ring runs from a quarter to half of SIZE away from the center.
+        assertEquals(-1, chart.sliceAt(c, c));
+        assertEquals(-1, chart.sliceAt(c, c - SIZE / 8));
+        assertEquals(0, chart.sliceAt(c, c - SIZE * 3 / 8));
+        assertEquals(1, chart.sliceAt(c, c + SIZE * 3 / 8));
+      }
+    });
+  }
+
+  @Test public void nodeAt_picksRingByRadius() throws Exception {
+    InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+      @Override public void run() {
+        PieChart chart = PieChartFixture.newChart();
+        chart.setShowText(false);
+        SunburstTree tree = new SunburstTree();
+        int north = tree.add(SunburstTree.ROOT, "North", 0, 0xffff0000);
+        int south = tree.add(SunburstTree.ROOT, "South", 2, 0xff00ff00);
+        int a = tree.add(north, "A", 1, 0xff0000ff);
+        int b = tree.add(north, "B", 1, 0xff000000);
+        chart.setHierarchy(tree);
+        PieChartFixture.layout(chart, SIZE);
+        chart.setPieRotation(0);
+
+        assertEquals(2, chart.getRingCount());
+        assertEquals(2, chart.getItemCount());
+        float c = SIZE / 2;
+        float inner = SIZE / 8;
+        float outer = SIZE * 3 / 8;
+        // North covers the top half, A its right quarter and B its left quarter.
+        assertEquals(north, chart.nodeAt(c + inner, c - 1));
+        assertEquals(a, chart.nodeAt(c + outer * 0.7f, c - outer * 0.7f));
+        assertEquals(b, chart.nodeAt(c - outer * 0.7f, c - outer * 0.7f));
+        assertEquals(south, chart.nodeAt(c, c + inner));
+        // South has no children, so its outer ring is empty.
+        assertEquals(-1, chart.nodeAt(c, c + outer));
+        // Slices are the innermost ring only.
+        assertEquals(0, chart.sliceAt(c + inner, c - 1));
+        assertEquals(-1, chart.sliceAt(c + outer * 0.7f, c - outer * 0.7f));
+      }
+    });
+  }
+
+  @Test public void nodeAt_ignoresChangesUntilTheTreeIsSetAgain() throws Exception {
+    InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+      @Override public void run() {
+        PieChart chart = PieChartFixture.newChart();
+        chart.setShowText(false);
+        SunburstTree tree = new SunburstTree();
+        int north = tree.add(SunburstTree.ROOT, "North", 0, 0xffff0000);
+        tree.add(SunburstTree.ROOT, "South", 1, 0xff00ff00);
+        int a = tree.add(north, "A", 1, 0xff0000ff);
+        chart.setHierarchy(tree);
+        PieChartFixture.layout(chart, SIZE);
+        chart.setPieRotation(0);
+
+        // The tree needs a new layout now, but the chart still shows it as it was set.
+        int deeper = tree.add(a, "A1", 1, 0xff000000);
+        PieChartFixture.draw(chart).recycle();
+        float c = SIZE / 2;
+        float outer = SIZE * 3 / 8;
+        assertEquals(2, chart.getRingCount());
+        assertEquals(a, chart.nodeAt(c, c - outer));
+        assertSame(tree, chart.getHierarchy());
+
+        chart.setHierarchy(tree);
+        assertEquals(3, chart.getRingCount());
+        assertEquals(deeper, chart.nodeAt(c, c - SIZE * 7 / 16));
+      }
+    });
+  }
+}
@@ -0,0 +1,70 @@
+package com.arachi.nkoroi.customviewandroiddocumentation;
+
+import android.app.Instrumentation;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Publishes data sets to a pie chart from several threads at once and checks that the
+ * chart ends up showing one of them whole.
+ */
+@RunWith(AndroidJUnit4.class) public class PieChartPublishTest {
+  private static final int THREADS = 4;
+  private static final int ROUNDS = 200;
+
+  @Test public void publishItems_fromWorkerThreads() throws Exception {
+    final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+    final PieChart[] chart = new PieChart[1];
+    instrumentation.runOnMainSync(new Runnable() {
+      @Override public void run() {
+        chart[0] = PieChartFixture.newChart();
+      }
+    });
+
+    final CountDownLatch done = new CountDownLatch(THREADS);
+    for (int t = 0; t < THREADS; ++t) {
+      // Thread t only publishes data sets of t + 1 items, each with its own total.
+      final int size = t + 1;
+      new Thread(new Runnable() {
+        @Override public void run() {
+          String[] labels = new String[size];
+          float[] values = new float[size];
+          int[] colors = new int[size];
+          for (int round = 0; round < ROUNDS; ++round) {
+            for (int i = 0; i < size; ++i) {
+              labels[i] = "Item " + i;
+              values[i] = 1 + round;
+              colors[i] = 0xff000000 | (i * 0x10305);
+            }
+            chart[0].publishItems(labels, values, colors);
+          }
+          done.countDown();
+        }
+      }).start();
+    }
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    instrumentation.waitForIdleSync();
+
+    instrumentation.runOnMainSync(new Runnable() {
+      @Override public void run() {
+        int count = chart[0].getItemCount();
+        assertTrue(count >= 1 && count <= THREADS);
+        // Every item of a data set has the same value, so a whole data set shows equal
+        // slices; a torn one wouldn't.
+        float sweep = 360.0f / count;
+        for (int i = 0; i < count; ++i) {
+          float angle = (i + 0.5f) * sweep - chart[0].getPieRotation();
+          assertEquals(i, chart[0].itemAtAngle(angle));
+        }
+      }
+    });
+  }
+}
@@ -0,0 +1,145 @@
+package com.arachi.nkoroi.customviewandroiddocumentation;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the two pie render modes draw the same slices, that reduced detail still
+ * covers the pie with slices too thin to draw one by one, and that drawing and switching
+ * modes work while a batch of data changes is open. The frame times of the modes are compared in
+ * {@link PieChartBenchmark}.
+ */
+@RunWith(AndroidJUnit4.class) public class PieChartRenderModeTest {
+  private static final int SIZE = 800;
+  private static final int SLICES = 500;
+
+  @Test public void renderModes_drawTheSamePixels() throws Exception {
+    InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+      @Override public void run() {
+        PieChart chart = PieChartFixture.newChart();
+        chart.setShowText(false);
+        chart.setDetailLevel(PieChart.DETAIL_LEVEL_FULL);
+        chart.setItems(new String[]{"A", "B", "C", "D"}, new float[]{1, 2, 3, 4},
+            new int[]{0xffcc0000, 0xff00cc00, 0xff0000cc, 0xffcccc00});
+        PieChartFixture.layout(chart, SIZE);
+        chart.setPieRotation(0);
+
+        chart.setRenderMode(PieChart.RENDER_MODE_ARCS);
+        Bitmap arcs = PieChartFixture.draw(chart);
+        chart.setRenderMode(PieChart.RENDER_MODE_COMPOSITE);
+        Bitmap composite = PieChartFixture.draw(chart);
+
+        // Sample the inside of every slice, away from the edges between slices.
+        float c = SIZE / 2;
+        float r = SIZE / 5;
+        float[] angles = {18, 72, 150, 270};
+        for (float angle : angles) {
+          double radians = Math.toRadians(angle);
+          int x = (int) (c + r * Math.cos(radians));
+          int y = (int) (c - r * Math.sin(radians));
+          assertSimilarColors(arcs.getPixel(x, y), composite.getPixel(x, y));
+        }
+        arcs.recycle();
+        composite.recycle();
+      }
+    });
+  }
+
+  @Test public void reducedDetail_drawsThinSlicesTogether() throws Exception {
+    InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+      @Override public void run() {
+        // Every slice is far narrower than a pixel at the rim of a small pie.
+        int count = 10000;
+        int size = 200;
+        float[] values = new float[count];
+        int[] colors = new int[count];
+        for (int i = 0; i < count; ++i) {
+          values[i] = 1;
+          colors[i] = 0xffff0000;
+        }
+        PieChart chart = PieChartFixture.newChart();
+        chart.setShowText(false);
+        chart.setDetailLevel(PieChart.DETAIL_LEVEL_REDUCED);
+        chart.setItems(PieChartFixture.labels(count), values, colors);
+        PieChartFixture.layout(chart, size);
+
+        Bitmap bitmap = PieChartFixture.draw(chart);
+        float c = size / 2;
+        float r = size / 5;
+        for (int angle = 0; angle < 360; angle += 30) {
+          double radians = Math.toRadians(angle);
+          int pixel = bitmap.getPixel((int) (c + r * Math.cos(radians)),
+              (int) (c - r * Math.sin(radians)));
+          // Mostly red: a sample may fall on the antialiased seam between two runs.
+          assertTrue(Integer.toHexString(pixel), Color.red(pixel) > 0xc0);
+          assertTrue(Integer.toHexString(pixel), Color.green(pixel) < 0x40);
+        }
+        bitmap.recycle();
+      }
+    });
+  }
+
+  @Test public void drawInsideBatch_drawsItemsWithoutShaders() throws Exception {
+    InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+      @Override public void run() {
+        PieChart chart = PieChartFixture.newChart(SIZE, SLICES);
+        Bitmap bitmap = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        chart.setRenderMode(PieChart.RENDER_MODE_ARCS);
+
+        // A frame may be drawn before the batch ends; the new items have no shaders yet.
+        chart.beginUpdate();
+        for (int i = 0; i < SLICES; ++i) {
+          chart.addItem("Extra " + i, 1, 0xff336699);
+        }
+        chart.draw(canvas);
+        chart.endUpdate();
+        chart.draw(canvas);
+        assertEquals(2 * SLICES, chart.getItemCount());
+        bitmap.recycle();
+      }
+    });
+  }
+
+  @Test public void renderModeInsideBatch_keepsTheDataChange() throws Exception {
+    InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+      @Override public void run() {
+        PieChart chart = PieChartFixture.newChart(SIZE, SLICES);
+        chart.setMetricsEnabled(true);
+        PieChartMetrics.Snapshot snapshot = new PieChartMetrics.Snapshot();
+
+        // The new render mode waits for the batch, so the new item is still recalculated
+        // as a data change when the batch ends.
+        chart.beginUpdate();
+        chart.addItem("Extra", 1, 0xff336699);
+        chart.setRenderMode(PieChart.RENDER_MODE_COMPOSITE);
+        chart.setDetailLevel(PieChart.DETAIL_LEVEL_FULL);
+        chart.getMetrics().snapshot(snapshot);
+        assertEquals(0, snapshot.getDataChangeCount());
+        chart.endUpdate();
+
+        chart.getMetrics().snapshot(snapshot);
+        assertEquals(1, snapshot.getDataChangeCount());
+        assertEquals(SLICES + 1, chart.getItemCount());
+      }
+    });
+  }
+
+  /**
+   * Both modes draw the same gradients, but rasterize them separately.
+   */
+  private static void assertSimilarColors(int expected, int actual) {
+    String message = Integer.toHexString(expected) + " vs " + Integer.toHexString(actual);
+    assertEquals(message, Color.red(expected), Color.red(actual), 8);
+    assertEquals(message, Color.green(expected), Color.green(actual), 8);
+    assertEquals(message, Color.blue(expected), Color.blue(actual), 8);
+  }
+}
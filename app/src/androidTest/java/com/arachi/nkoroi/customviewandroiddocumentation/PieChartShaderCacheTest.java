@@ -0,0 +1,86 @@
+package com.arachi.nkoroi.customviewandroiddocumentation;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the slice shaders are reused when the slices don't change or only move, also
+ * for more slices than {@link PieChart#SHADER_CACHE_SIZE}.
+ */
+@RunWith(AndroidJUnit4.class) public class PieChartShaderCacheTest {
+  private static final int SIZE = 800;
+  private static final int SLICES = 2 * PieChart.SHADER_CACHE_SIZE;
+
+  @Test public void unchangedData_reusesEveryShader() throws Exception {
+    InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+      @Override public void run() {
+        String[] labels = PieChartFixture.labels(SLICES);
+        float[] values = PieChartFixture.values(SLICES);
+        int[] colors = PieChartFixture.colors(SLICES);
+        PieChart chart = createChart(labels, values, colors);
+
+        int misses = chart.getShaderCacheMissCount();
+        int hits = chart.getShaderCacheHitCount();
+        assertTrue(misses >= SLICES);
+
+        // Recalculating the same slices creates no shaders.
+        chart.setRenderMode(PieChart.RENDER_MODE_ARCS);
+        assertEquals(misses, chart.getShaderCacheMissCount());
+        assertEquals(hits + SLICES, chart.getShaderCacheHitCount());
+
+        // Neither does setting the same data again.
+        chart.setItems(labels, values, colors);
+        assertEquals(misses, chart.getShaderCacheMissCount());
+        assertEquals(hits + 2 * SLICES, chart.getShaderCacheHitCount());
+
+        // A new color only misses for its slice.
+        colors[7] = 0xff123456;
+        chart.setItems(labels, values, colors);
+        assertEquals(misses + 1, chart.getShaderCacheMissCount());
+      }
+    });
+  }
+
+  @Test public void updateKeepingTheTotal_onlyRecalculatesLaterSlices() throws Exception {
+    InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+      @Override public void run() {
+        PieChart chart = createChart(PieChartFixture.labels(SLICES),
+            PieChartFixture.values(SLICES), PieChartFixture.colors(SLICES));
+        int misses = chart.getShaderCacheMissCount();
+        int hits = chart.getShaderCacheHitCount();
+
+        // Swapping the last two items keeps the total; the slices before them aren't
+        // looked at, and the two swap their shaders.
+        chart.moveItem(SLICES - 2, SLICES - 1);
+        assertEquals(misses, chart.getShaderCacheMissCount());
+        assertEquals(hits + 2, chart.getShaderCacheHitCount());
+
+        // Moving the first item to the end shifts every slice, but their sweeps stay the
+        // same, so every slice keeps or finds its shader.
+        chart.moveItem(0, SLICES - 1);
+        assertEquals(misses, chart.getShaderCacheMissCount());
+        assertEquals(hits + 2 + SLICES, chart.getShaderCacheHitCount());
+
+        // A new value changes the total, which scales every slice.
+        chart.updateItemValue(SLICES - 1, 100);
+        assertEquals(misses + SLICES, chart.getShaderCacheMissCount());
+      }
+    });
+  }
+
+  /**
+   * Create a chart of the given items with full detail, so that every slice has a shader.
+   */
+  private static PieChart createChart(String[] labels, float[] values, int[] colors) {
+    PieChart chart = PieChartFixture.newChart();
+    chart.setDetailLevel(PieChart.DETAIL_LEVEL_FULL);
+    chart.setItems(labels, values, colors);
+    PieChartFixture.layout(chart, SIZE);
+    return chart;
+  }
+}
@@ -0,0 +1,222 @@
+package com.arachi.nkoroi.customviewandroiddocumentation;
+
+import android.os.Debug;
+import android.view.animation.AnimationUtils;
+
+/**
+ * Debug helper that counts the object allocations made by {@link PieChart} while it draws
+ * and animates.
+ *
+ * The chart wraps each hot path (drawing, fling ticks, animator callbacks) in
+ * {@link #beginSection()} and {@link #endSection()}. Allocations made inside a section are
+ * added to the current frame. A new frame starts when a section begins with a different
+ * frame time than the previous one. The chart passes the frame time its Choreographer
+ * callbacks get, so that every section of one frame is counted together.
+ *
+ * Tracking relies on the thread allocation counter of {@link Debug}, so it only gives
+ * meaningful numbers in debuggable builds. It is off by default; turn it on with
+ * {@link PieChart#setAllocationTrackingEnabled(boolean)}.
+ */
+public final class FrameAllocationTracker {
+
+  /**
+   * Source of the running allocation count of the current thread.
+   */
+  interface Counter {
+    long allocationCount();
+  }
+
+  /**
+   * Source of the time of the frame that is currently being produced.
+   */
+  interface FrameClock {
+    long frameTime();
+  }
+
+  private static final Counter THREAD_ALLOC_COUNTER = new Counter() {
+    // The alloc counting API is deprecated but is the only per-thread count there is.
+    @SuppressWarnings("deprecation")
+    @Override public long allocationCount() {
+      return Debug.getThreadAllocCount();
+    }
+  };
+
+  private final Counter mCounter;
+  private final FrameClock mClock;
+
+  private int mDepth = 0;
+  private long mSectionStart;
+
+  private long mFrameTime = Long.MIN_VALUE;
+  private int mFrameAllocations = 0;
+  private boolean mFrameOpen = false;
+
+  private int mLastFrameAllocations = 0;
+  private int mMaxFrameAllocations = 0;
+  private long mTotalAllocations = 0;
+  private int mFrameCount = 0;
+  private int mAllocatingFrameCount = 0;
+
+  /**
+   * Creates a tracker that takes the frame time from the animation clock, for versions
+   * without a Choreographer.
+   */
+  FrameAllocationTracker() {
+    this(new FrameClock() {
+      @Override public long frameTime() {
+        return AnimationUtils.currentAnimationTimeMillis();
+      }
+    });
+  }
+
+  /**
+   * Creates a tracker that counts the allocations of the current thread.
+   *
+   * @param clock The time of the frame that is currently being produced.
+   */
+  FrameAllocationTracker(FrameClock clock) {
+    this(THREAD_ALLOC_COUNTER, clock);
+  }
+
+  FrameAllocationTracker(Counter counter, FrameClock clock) {
+    mCounter = counter;
+    mClock = clock;
+  }
+
+  /**
+   * Start counting the allocations of the current thread.
+   */
+  @SuppressWarnings("deprecation") // See THREAD_ALLOC_COUNTER above.
+  void start() {
+    Debug.startAllocCounting();
+  }
+
+  /**
+   * Stop counting allocations.
+   */
+  @SuppressWarnings("deprecation") // See THREAD_ALLOC_COUNTER above.
+  void stop() {
+    Debug.stopAllocCounting();
+  }
+
+  /**
+   * Mark the start of a hot path. Sections may be nested; only the outermost one is
+   * counted.
+   */
+  void beginSection() {
+    if (mDepth++ > 0) {
+      return;
+    }
+    long frameTime = mClock.frameTime();
+    if (!mFrameOpen || frameTime != mFrameTime) {
+      endFrame();
+      mFrameTime = frameTime;
+      mFrameOpen = true;
+    }
+    mSectionStart = mCounter.allocationCount();
+  }
+
+  /**
+   * Mark the end of a hot path started with {@link #beginSection()}.
+   */
+  void endSection() {
+    if (mDepth == 0) {
+      throw new IllegalStateException("endSection() called without matching beginSection()");
+    }
+    if (--mDepth > 0) {
+      return;
+    }
+    mFrameAllocations += (int) (mCounter.allocationCount() - mSectionStart);
+  }
+
+  /**
+   * Close the current frame, if any, and fold its allocations into the totals.
+   */
+  void endFrame() {
+    if (!mFrameOpen) {
+      return;
+    }
+    mLastFrameAllocations = mFrameAllocations;
+    mMaxFrameAllocations = Math.max(mMaxFrameAllocations, mFrameAllocations);
+    mTotalAllocations += mFrameAllocations;
+    mFrameCount++;
+    if (mFrameAllocations > 0) {
+      mAllocatingFrameCount++;
+    }
+    mFrameAllocations = 0;
+    mFrameOpen = false;
+  }
+
+  /**
+   * Returns the number of allocations made in the last completed frame.
+   *
+   * @return The allocation count of the last frame.
+   */
+  public int getLastFrameAllocations() {
+    return mLastFrameAllocations;
+  }
+
+  /**
+   * Returns the largest number of allocations made in a single frame.
+   *
+   * @return The highest per-frame allocation count seen since the last reset.
+   */
+  public int getMaxFrameAllocations() {
+    return mMaxFrameAllocations;
+  }
+
+  /**
+   * Returns the number of allocations made in all completed frames.
+   *
+   * @return The total allocation count since the last reset.
+   */
+  public long getTotalAllocations() {
+    return mTotalAllocations;
+  }
+
+  /**
+   * Returns the number of frames completed since the last reset.
+   *
+   * @return The frame count.
+   */
+  public int getFrameCount() {
+    return mFrameCount;
+  }
+
+  /**
+   * Returns the number of completed frames that allocated at least once.
+   *
+   * @return The number of frames with allocations.
+   */
+  public int getAllocatingFrameCount() {
+    return mAllocatingFrameCount;
+  }
+
+  /**
+   * Forget all of the counts collected so far.
+   */
+  public void reset() {
+    mFrameAllocations = 0;
+    mFrameOpen = false;
+    mLastFrameAllocations = 0;
+    mMaxFrameAllocations = 0;
+    mTotalAllocations = 0;
+    mFrameCount = 0;
+    mAllocatingFrameCount = 0;
+  }
+
+  /**
+   * Fail if any completed frame allocated. Intended to be called from tests after
+   * driving the chart through a draw or a fling.
+   *
+   * @throws IllegalStateException if a frame allocated.
+   */
+  public void assertNoAllocations() {
+    endFrame();
+    if (mAllocatingFrameCount > 0) {
+      throw new IllegalStateException(mAllocatingFrameCount + " of " + mFrameCount
+          + " frames allocated, " + mTotalAllocations + " allocations in total, at most "
+          + mMaxFrameAllocations + " in one frame");
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.arachi.nkoroi.customviewandroiddocumentation;
+
+import android.text.TextPaint;
+import android.text.TextUtils;
+import com.arachi.nkoroi.piegeometry.SliceStore;
+import java.util.Arrays;
+
+/**
+ * The label of each slice, shortened to fit the label area and measured once.
+ *
+ * Measuring a label and cutting it down to the width reserved for it is the costly part
+ * of drawing the text, and the label of the current item is drawn on every frame of a
+ * fling. The cache does that work when the data changes, in {@link #update}, and drawing
+ * only looks the results up. A label is fitted again only when its text, the width
+ * reserved for it, or the font changes; the last one is signalled with
+ * {@link #invalidate()}.
+ */
+final class LabelCache {
+  private static final int DEFAULT_CAPACITY = 8;
+
+  private final TextPaint mPaint;
+  // The full label each entry was fitted from.
+  private String[] mLabels = new String[DEFAULT_CAPACITY];
+  private CharSequence[] mText = new CharSequence[DEFAULT_CAPACITY];
+  private float[] mWidths = new float[DEFAULT_CAPACITY];
+  private int mSize = 0;
+  private float mMaxWidth = 0.0f;
+
+  /**
+   * @param paint The paint the labels are drawn with.
+   */
+  LabelCache(TextPaint paint) {
+    mPaint = paint;
+  }
+
+  /**
+   * Forget all of the fitted labels, after the font changed.
+   */
+  void invalidate() {
+    Arrays.fill(mLabels, 0, mSize, null);
+    Arrays.fill(mText, 0, mSize, null);
+    mSize = 0;
+  }
+
+  /**
+   * Fit and measure the labels of the given slices. The slices before {@code from} must
+   * not have changed since the last update; from there on, only labels whose text changed
+   * are fitted again. If the width changed, every label is.
+   *
+   * @param slices   The slices to take the labels from.
+   * @param from     The first slice that may have changed.
+   * @param maxWidth The width the labels must fit in, in pixels, or 0 for no limit.
+   */
+  void update(SliceStore slices, int from, float maxWidth) {
+    if (maxWidth != mMaxWidth) {
+      mMaxWidth = maxWidth;
+      invalidate();
+    }
+    int count = slices.size();
+    if (count > mText.length) {
+      int capacity = Math.max(count, mText.length * 2);
+      mLabels = Arrays.copyOf(mLabels, capacity);
+      mText = Arrays.copyOf(mText, capacity);
+      mWidths = Arrays.copyOf(mWidths, capacity);
+    }
+    for (int i = Math.min(from, mSize); i < count; ++i) {
+      String label = slices.label(i);
+      if (mText[i] != null && TextUtils.equals(label, mLabels[i])) {
+        continue;
+      }
+      CharSequence text = label;
+      if (mMaxWidth > 0) {
+        text = TextUtils.ellipsize(label, mPaint, mMaxWidth, TextUtils.TruncateAt.END);
+      }
+      mLabels[i] = label;
+      mText[i] = text;
+      mWidths[i] = mPaint.measureText(text, 0, text.length());
+    }
+    if (count < mSize) {
+      Arrays.fill(mLabels, count, mSize, null);
+      Arrays.fill(mText, count, mSize, null);
+    }
+    mSize = count;
+  }
+
+  /**
+   * Returns the number of fitted labels: the number of slices at the last update, or 0
+   * after {@link #invalidate()}.
+   */
+  int size() {
+    return mSize;
+  }
+
+  /**
+   * Returns the label of a slice, ellipsized at the end if it is too wide.
+   *
+   * @param index The index of the slice, less than {@link #size()}.
+   */
+  CharSequence text(int index) {
+    return mText[index];
+  }
+
+  /**
+   * Returns the width of the label of a slice as {@link #text(int)} returns it, in pixels.
+   */
+  float width(int index) {
+    return mWidths[index];
+  }
+}
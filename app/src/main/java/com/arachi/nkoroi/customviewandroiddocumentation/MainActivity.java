@@ -18,12 +18,14 @@ public class MainActivity extends AppCompatActivity {
 
     setContentView(R.layout.activity_main);
     final PieChart pie = (PieChart) this.findViewById(R.id.Pie);
+    pie.beginUpdate();
     pie.addItem("Agamemnon", 2, resources.getColor(R.color.seafoam));
     pie.addItem("Bocephus", 3.5f, resources.getColor(R.color.chartreuse));
     pie.addItem("Calliope", 2.5f, resources.getColor(R.color.emerald));
     pie.addItem("Daedalus", 3, resources.getColor(R.color.bluegrass));
     pie.addItem("Euripides", 1, resources.getColor(R.color.turquoise));
     pie.addItem("Ganymede", 3, resources.getColor(R.color.slate));
+    pie.endUpdate();
 
     ((Button) findViewById(R.id.Reset)).setOnClickListener(new View.OnClickListener() {
       public void onClick(View view) {
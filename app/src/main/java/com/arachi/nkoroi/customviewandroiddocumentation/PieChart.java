@@ -1,30 +1,44 @@
 package com.arachi.nkoroi.customviewandroiddocumentation;
 
 import android.animation.Animator;
-import android.animation.ObjectAnimator;
+import android.animation.TimeInterpolator;
 import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.BlurMaskFilter;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.PointF;
+import android.graphics.PorterDuff;
 import android.graphics.RectF;
 import android.graphics.Shader;
 import android.graphics.SweepGradient;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.Nullable;
+import android.text.TextPaint;
 import android.util.AttributeSet;
+import android.util.LruCache;
+import android.view.Choreographer;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.WindowManager;
 import android.view.ViewGroup;
-import android.widget.Scroller;
-import java.util.ArrayList;
-import java.util.List;
+import com.arachi.nkoroi.piegeometry.FlingEngine;
+import com.arachi.nkoroi.piegeometry.LabelPlacer;
+import com.arachi.nkoroi.piegeometry.PieGeometry;
+import com.arachi.nkoroi.piegeometry.SliceAggregator;
+import com.arachi.nkoroi.piegeometry.SliceStore;
+import com.arachi.nkoroi.piegeometry.SliceTransition;
+import com.arachi.nkoroi.piegeometry.SunburstTree;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Created by nkoroi on 19/04/17.
@@ -68,14 +82,111 @@ import java.util.List;
  */
 
 public class PieChart extends ViewGroup {
-  private List<Item> mData = new ArrayList<Item>();
+  private SliceStore mStore = new SliceStore();
+
+  // The slices that are drawn. Either mStore itself or, when thin slices are folded into
+  // an "Other" slice, mAggregatedStore. Current item indices refer to these slices.
+  private SliceStore mSlices = mStore;
+  private SliceStore mAggregatedStore = new SliceStore();
+  private SliceAggregator mAggregator = new SliceAggregator();
+  // Items whose slice is thinner than either threshold are folded. 0 disables a threshold.
+  private float mMinSliceAngle = 0.0f;
+  private float mMinSliceArcLength = 0.0f;
+  private String mOtherLabel = "Other";
+  private int mOtherColor = 0xff9e9e9e;
+
+  // The hierarchy shown as a sunburst, or null for a plain pie, and the copy of it that
+  // is drawn. The caller may change the hierarchy at any time, so drawing and hit testing
+  // only read the copy, which keeps the layout the chart was sized for. Its innermost ring
+  // is copied into mStore, so the pie engine draws and rotates that ring like any pie.
+  private SunburstTree mHierarchy = null;
+  private SunburstTree mSunburst = null;
+  // Holds the copy while no hierarchy is shown, so that its buffers are reused.
+  private SunburstTree mSpareSunburst = null;
+
+  // The gradient shader of each slice, indexed like mSlices. Each shader is drawn for one
+  // slice only, since its local matrix turns it to the start of that slice.
+  private Shader[] mShaders = new Shader[0];
+
+  // The key of each shader in mShaders. A slice whose key did not change keeps its
+  // shader without a cache lookup.
+  private ShaderKey[] mShaderKeys = new ShaderKey[0];
+
+  // The end angle each shader in mShaders is turned to, or NaN if it isn't turned yet.
+  private float[] mShaderAngles = new float[0];
+  private final Matrix mShaderMatrix = new Matrix();
+
+  // Recently used slice shaders that no slice holds, so that slices whose colors and sweep
+  // did not change get their shader back across data and size changes, even when they
+  // move to another index or another angle. Grows with the number of slices.
+  private LruCache<ShaderKey, Shader> mShaderCache =
+      new LruCache<ShaderKey, Shader>(SHADER_CACHE_SIZE);
+  private int mShaderHitCount = 0;
+  private int mShaderMissCount = 0;
+
+  private int mRenderMode = RENDER_MODE_ARCS;
+  // One sweep gradient holding the color stops of every slice, used by
+  // RENDER_MODE_COMPOSITE. Null when there is no data.
+  private Shader mCompositeShader = null;
+  // The stops of mCompositeShader, two per slice, kept to rewrite only the changed ones.
+  private int[] mCompositeColors = new int[0];
+  private float[] mCompositePositions = new float[0];
+
+  // True if the pie is rendered once into an offscreen bitmap that is then only
+  // transformed to rotate the pie.
+  private boolean mPieCacheEnabled = false;
+
+  // Double buffer for data published from other threads. A producer fills a store that
+  // nobody else can see, then hands it over through mPendingStore; the UI thread swaps it
+  // in as mStore and gives the store it replaces back through mSpareStore.
+  private final AtomicReference<SliceStore> mPendingStore = new AtomicReference<SliceStore>();
+  private final AtomicReference<SliceStore> mSpareStore = new AtomicReference<SliceStore>();
+  private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+  private final Runnable mSwapStoreRunnable = new Runnable() {
+    @Override public void run() {
+      swapInPendingStore();
+    }
+  };
+
+  // Morphs the slices when the data changes. Only used while mTransitionDuration is
+  // positive.
+  private SliceTransition mTransition = new SliceTransition();
+  private ValueAnimator mTransitionAnimator;
+  private long mTransitionDuration = 0;
+  private boolean mTransitionCanceled = false;
 
-  private float mTotal = 0.0f;
+  private int mLayerPolicy = LAYER_POLICY_HARDWARE_DURING_INTERACTION;
+  private int mDetailLevel = DETAIL_LEVEL_AUTO;
+  // The level actually drawn. Never DETAIL_LEVEL_AUTO.
+  private int mEffectiveDetailLevel = DETAIL_LEVEL_FULL;
+
+  // True between the start of a touch gesture and the moment the pie stops moving.
+  private boolean mInteracting = false;
+  private int mLayerTransitionCount = 0;
+  private int mGestureLayerTransitionCount = 0;
 
   private RectF mPieBounds = new RectF();
+  // The radius of the hole in the middle, as a fraction of the pie radius. 0 for a pie.
+  private float mInnerRadius = 0.0f;
 
   private Paint mPiePaint;
-  private Paint mTextPaint;
+  // Draws the slices in flat colors, during the data transition and at reduced detail.
+  private Paint mFlatPaint;
+  // Draws the outer rings of a sunburst.
+  private Paint mRingPaint;
+  private TextPaint mTextPaint;
+  // The label of each slice, fitted to the label width and measured.
+  private LabelCache mLabels;
+  private int mLabelMode = LABEL_MODE_CURRENT;
+  // Places the slice labels in LABEL_MODE_OUTSIDE. The placement is kept until the data,
+  // the size, the font or the rotation changes.
+  private LabelPlacer mLabelPlacer = new LabelPlacer();
+  private float[] mLabelAngles = new float[8];
+  private boolean mSliceLabelsDirty = true;
+  // The room for the slice labels on each side of the pie, in pixels.
+  private float mSliceLabelColumnWidth = 0.0f;
+  private float mLabelLeaderLength;
+  private float mLabelGap;
   private Paint mShadowPaint;
 
   private boolean mShowText = false;
@@ -86,33 +197,88 @@ public class PieChart extends ViewGroup {
   private float mTextHeight = 0.0f;
   private int mTextPos = TEXTPOS_LEFT;
 
-  private float mHighlightStrength = 1.15f;
+  // Volatile because publishItems() reads it on the producer thread.
+  private volatile float mHighlightStrength = 1.15f;
 
   private float mPointerRadius = 2.0f;
   private float mPointerX;
   private float mPointerY;
 
-  private int mPieRotation;
+  private float mPieRotation;
 
   private OnCurrentItemChangedListener mCurrentItemChangedListener = null;
+  private OnCurrentItemSettledListener mCurrentItemSettledListener = null;
+  private OnSliceClickListener mSliceClickListener = null;
+  private OnSliceLongClickListener mSliceLongClickListener = null;
+  private int mCurrentItemDispatchMode = CURRENT_ITEM_DISPATCH_IMMEDIATE;
+  // The current item listeners were last told about.
+  private int mDispatchedItem = 0;
+  private int mSettledItem = 0;
+  // The current item and the angles of its slice when the slices were last recalculated.
+  // A data change only settles the pie again if these changed.
+  private int mCurrentSliceItem = -1;
+  private float mCurrentSliceStart = 0.0f;
+  private float mCurrentSliceEnd = 0.0f;
+  // True while a per-frame dispatch of the current item is scheduled.
+  private boolean mCurrentItemDispatchPending = false;
+  private Choreographer.FrameCallback mDispatchFrameCallback;
+  private Runnable mDispatchRunnable;
 
   private int mTextColor;
   private PieView mPieView;
-  private Scroller mScroller;
-  private ValueAnimator mScrollAnimator;
+  private FlingEngine mFling = new FlingEngine();
+  // Runs the fling once per frame: a Choreographer frame callback from API 16, a Handler
+  // message on older versions.
+  private Choreographer.FrameCallback mFlingFrameCallback;
+  private Runnable mFlingFrameRunnable;
   private GestureDetector mDetector;
   private PointerView mPointerView;
 
   // The angle at which we measure the current item. This is
   // where the pointer points.
-  private int mCurrentItemAngle;
+  private float mCurrentItemAngle;
 
   // the index of the current item.
   private int mCurrentItem = 0;
   private boolean mAutoCenterInSlice;
-  private ObjectAnimator mAutoCenterAnimator;
+  private ValueAnimator mAutoCenterAnimator;
+  // The rotations the auto-center animation runs between.
+  private float mAutoCenterStartRotation;
+  private float mAutoCenterTargetRotation;
   private RectF mShadowBounds = new RectF();
 
+  // The blurred shadow, rendered once per size. Blurring with a mask filter is slow and
+  // is not supported by hardware-accelerated canvases on many API levels, so onDraw only
+  // draws this bitmap.
+  private Bitmap mShadowBitmap;
+  private Canvas mShadowCanvas = new Canvas();
+  private Paint mShadowBitmapPaint;
+  private float mShadowBitmapX;
+  private float mShadowBitmapY;
+
+  // Counts allocations on the draw and animation paths. Null unless allocation
+  // tracking has been turned on.
+  private FrameAllocationTracker mAllocationTracker = null;
+  // The time of the frame being produced, from the Choreographer. While allocation
+  // tracking is on, mAllocationFrameCallback updates it at the start of every frame.
+  private long mFrameTimeNanos = 0;
+  private Choreographer.FrameCallback mAllocationFrameCallback;
+  private PieChartMetrics mMetrics = null;
+
+  // Nesting depth of beginUpdate()/endUpdate() pairs. While this is non-zero, data
+  // changes are only recorded and the geometry is recomputed once by the outermost
+  // endUpdate().
+  private int mUpdateDepth = 0;
+  private boolean mDataDirty = false;
+  // Set when a change other than to the data, like a new size or render mode, was
+  // deferred to the end of the batch. It reaches every slice, but isn't animated.
+  private boolean mSlicesDirty = false;
+  // The first item that changed since the slices were last recalculated. The slices
+  // before it keep their labels and, while the total stays the same, their shaders.
+  private int mFirstChangedItem = Integer.MAX_VALUE;
+  // The total of the values the slice shaders were created for.
+  private float mShaderTotal = 0.0f;
+
   /**
    * Draw text to the left of the pie chart
    */
@@ -123,6 +289,108 @@ public class PieChart extends ViewGroup {
    */
   public static final int TEXTPOS_RIGHT = 1;
 
+  /**
+   * Show the label of the current item beside the pie, with the pointer.
+   */
+  public static final int LABEL_MODE_CURRENT = 0;
+
+  /**
+   * Show the label of every slice around the pie, joined to its slice by a leader line.
+   * Labels that would overlap are hidden.
+   */
+  public static final int LABEL_MODE_OUTSIDE = 1;
+
+  /**
+   * Draw each slice as a separate arc with its own shader.
+   */
+  public static final int RENDER_MODE_ARCS = 0;
+
+  /**
+   * Draw the whole pie as a single oval filled with one gradient that holds the colors
+   * of every slice.
+   */
+  public static final int RENDER_MODE_COMPOSITE = 1;
+
+  /**
+   * Put the pie on a hardware layer while the user interacts with it, and on a software
+   * layer when it is at rest.
+   */
+  public static final int LAYER_POLICY_HARDWARE_DURING_INTERACTION = 0;
+
+  /**
+   * Keep the pie on a hardware layer at all times.
+   */
+  public static final int LAYER_POLICY_ALWAYS_HARDWARE = 1;
+
+  /**
+   * Keep the pie on a software layer at all times.
+   */
+  public static final int LAYER_POLICY_ALWAYS_SOFTWARE = 2;
+
+  /**
+   * Keep the pie on a hardware layer at all times when it has at least
+   * AUTO_LAYER_SLICE_THRESHOLD slices, since rebuilding the layer is expensive then.
+   * Otherwise behave like LAYER_POLICY_HARDWARE_DURING_INTERACTION.
+   */
+  public static final int LAYER_POLICY_AUTO = 3;
+
+  /**
+   * The slice count from which LAYER_POLICY_AUTO keeps the hardware layer.
+   */
+  public static final int AUTO_LAYER_SLICE_THRESHOLD = 64;
+
+  /**
+   * Pick the detail level from the diameter of the pie.
+   */
+  public static final int DETAIL_LEVEL_AUTO = 0;
+
+  /**
+   * Draw every slice with its gradient and highlight, and show the label.
+   */
+  public static final int DETAIL_LEVEL_FULL = 1;
+
+  /**
+   * Draw the slices in flat colors and skip the slices narrower than a pixel. The label
+   * is still shown.
+   */
+  public static final int DETAIL_LEVEL_REDUCED = 2;
+
+  /**
+   * Like DETAIL_LEVEL_REDUCED, but without the label and pointer. Meant for thumbnails,
+   * and for lists and grids that show many charts at once.
+   */
+  public static final int DETAIL_LEVEL_MINIMAL = 3;
+
+  /**
+   * The smallest pie diameter, in dp, that DETAIL_LEVEL_AUTO draws at full detail.
+   */
+  public static final int AUTO_DETAIL_FULL_DIAMETER_DP = 160;
+
+  /**
+   * The smallest pie diameter, in dp, that DETAIL_LEVEL_AUTO draws at reduced detail.
+   * Smaller pies are drawn at minimal detail.
+   */
+  public static final int AUTO_DETAIL_REDUCED_DIAMETER_DP = 64;
+
+  /**
+   * Tell the OnCurrentItemChangedListener about every change of the current item as it
+   * happens.
+   */
+  public static final int CURRENT_ITEM_DISPATCH_IMMEDIATE = 0;
+
+  /**
+   * Tell the OnCurrentItemChangedListener about the current item at most once per frame,
+   * and only if it differs from the one it was last told about. Meant for pies with many
+   * narrow slices, where a fast fling crosses several slices per frame.
+   */
+  public static final int CURRENT_ITEM_DISPATCH_PER_FRAME = 1;
+
+  /**
+   * The time between fling frames before API 16, where there is no Choreographer to tell
+   * when the next frame is due.
+   */
+  public static final int FALLBACK_FRAME_DELAY = 16;
+
   /**
    * The initial fling velocity is divided by this amount.
    */
@@ -133,6 +401,26 @@ public class PieChart extends ViewGroup {
    */
   public static final int AUTOCENTER_ANIM_DURATION = 250;
 
+  /**
+   * How far the leader lines of slice labels reach beyond the pie, in dp.
+   */
+  private static final float LABEL_LEADER_LENGTH_DP = 12;
+
+  /**
+   * The gap between a leader line and its label, and between two labels, in dp.
+   */
+  private static final float LABEL_GAP_DP = 4;
+
+  /**
+   * The blur radius of the shadow under the pie, in pixels.
+   */
+  private static final float SHADOW_BLUR_RADIUS = 8;
+
+  /**
+   * The number of slice shaders kept for reuse beyond the shaders of the current slices.
+   */
+  public static final int SHADER_CACHE_SIZE = 512;
+
 
 
   /**
@@ -143,6 +431,28 @@ public class PieChart extends ViewGroup {
     void OnCurrentItemChanged(PieChart source, int currentItem);
   }
 
+  /**
+   * Interface definition for a callback to be invoked when the pie comes to rest on a
+   * new current item.
+   */
+  public interface OnCurrentItemSettledListener {
+    void onCurrentItemSettled(PieChart source, int currentItem);
+  }
+
+  /**
+   * Interface definition for a callback to be invoked when a slice is tapped.
+   */
+  public interface OnSliceClickListener {
+    void onSliceClick(PieChart source, int slice);
+  }
+
+  /**
+   * Interface definition for a callback to be invoked when a slice is touched and held.
+   */
+  public interface OnSliceLongClickListener {
+    void onSliceLongClick(PieChart source, int slice);
+  }
+
   /**
    * Class constructor taking only a context. Use this constructor to create
    * {@link PieChart} objects from your own code.
@@ -191,6 +501,17 @@ public class PieChart extends ViewGroup {
       mPieRotation = a.getInt(R.styleable.PieChart_pieRotation, 0);
       mPointerRadius = a.getDimension(R.styleable.PieChart_pointerRadius, 2.0f);
       mAutoCenterInSlice = a.getBoolean(R.styleable.PieChart_autoCenterPointerInSlice, false);
+      mRenderMode = a.getInteger(R.styleable.PieChart_renderMode, RENDER_MODE_ARCS);
+      mPieCacheEnabled = a.getBoolean(R.styleable.PieChart_cachePie, false);
+      mLayerPolicy = a.getInteger(R.styleable.PieChart_layerPolicy,
+          LAYER_POLICY_HARDWARE_DURING_INTERACTION);
+      mDetailLevel = a.getInteger(R.styleable.PieChart_detailLevel, DETAIL_LEVEL_AUTO);
+      mCurrentItemDispatchMode = a.getInteger(R.styleable.PieChart_currentItemDispatch,
+          CURRENT_ITEM_DISPATCH_IMMEDIATE);
+      mMinSliceAngle = a.getFloat(R.styleable.PieChart_minSliceAngle, 0.0f);
+      mMinSliceArcLength = a.getDimension(R.styleable.PieChart_minSliceArcLength, 0.0f);
+      mLabelMode = a.getInteger(R.styleable.PieChart_labelMode, LABEL_MODE_CURRENT);
+      mInnerRadius = checkInnerRadius(a.getFloat(R.styleable.PieChart_innerRadius, 0.0f));
     }finally {
       a.recycle();
     }
@@ -215,12 +536,20 @@ public class PieChart extends ViewGroup {
    * Set the current rotation of the pie graphic. Setting this value may change
    * the current item.
    *
-   * @param rotation The current pie rotation, in degrees.1
+   * @param rotation The current pie rotation, in degrees.
    */
-  public void setPieRotation(int rotation) {
-    rotation = (rotation % 360 + 360) % 360;
+  public void setPieRotation(float rotation) {
+    rotation = PieGeometry.normalizeAngle(rotation);
+    if (rotation == mPieRotation) {
+      return;
+    }
     mPieRotation = rotation;
     mPieView.rotateTo(rotation);
+    if (drawsSliceLabels() && !mSliceLabelsDirty) {
+      // The slice labels hang off their slices, so they have to be placed again.
+      mSliceLabelsDirty = true;
+      invalidate();
+    }
 
     calcCurrentItem();
   }
@@ -306,6 +635,7 @@ public class PieChart extends ViewGroup {
    */
   public void setTextWidth(float textWidth){
     mTextWidth = textWidth;
+    invalidateLabels();
     invalidate();
   }
 
@@ -325,6 +655,8 @@ public class PieChart extends ViewGroup {
    */
   public  void setTextHeight(float textHeight){
     mTextHeight = textHeight;
+    mTextPaint.setTextSize(mTextHeight);
+    invalidateLabels();
     invalidate();
   }
 
@@ -409,170 +741,1033 @@ public class PieChart extends ViewGroup {
    *
    * @return The current pie rotation, in degrees.
    */
-  public int getPieRotation() {
+  public float getPieRotation() {
     return mPieRotation;
   }
 
+  /**
+   * Returns the radius of the hole in the middle of the chart.
+   *
+   * @return The inner radius as a fraction of the pie radius, 0 for a plain pie.
+   */
+  public float getInnerRadius() {
+    return mInnerRadius;
+  }
 
+  /**
+   * Turn the pie into a donut. The slices become segments of a ring, drawn as thick arcs
+   * around the hole instead of wedges, so a donut costs the same to draw as a pie in
+   * every render mode. Taps in the hole don't hit any slice.
+   *
+   * @param innerRadius The radius of the hole as a fraction of the pie radius, from 0
+   *                    inclusive for a plain pie to 1 exclusive.
+   */
+  public void setInnerRadius(float innerRadius) {
+    mInnerRadius = checkInnerRadius(innerRadius);
+    mPieView.updateRing();
+  }
 
   /**
-   * Returns the index of the currently selected data item.
+   * Returns the inner radius if it is from 0 up to, but not including, 1.
    *
-   * @return The zero-based index of the currently selected data item.
+   * @throws IllegalArgumentException If the inner radius is out of range.
    */
-  public int getCurrentItem() {
-    return mCurrentItem;
+  private static float checkInnerRadius(float innerRadius) {
+    if (!(innerRadius >= 0 && innerRadius < 1)) {
+      throw new IllegalArgumentException("innerRadius must be at least 0 and less than 1");
+    }
+    return innerRadius;
   }
 
   /**
-   * Set the currently selected item. Calling this function will set the current selection
-   * and rotate the pie to bring it into view.
+   * Returns how the pie slices are drawn.
    *
-   * @param currentItem The zero-based index of the item to select.
+   * @return One of RENDER_MODE_ARCS or RENDER_MODE_COMPOSITE.
    */
-  public void setCurrentItem(int currentItem) {
-    setCurrentItem(currentItem, true);
+  public int getRenderMode() {
+    return mRenderMode;
   }
 
   /**
-   * Set the current item by index. Optionally, scroll the current item into view. This version
-   * is for internal use--the scrollIntoView option is always true for external callers.
+   * Set how the pie slices are drawn. RENDER_MODE_ARCS binds a shader and draws an arc
+   * for every slice. RENDER_MODE_COMPOSITE draws the whole pie with a single oval and a
+   * single gradient, which is much cheaper when there are many slices. The chart falls
+   * back to arcs whenever a slice needs to be drawn on its own.
    *
-   * @param currentItem    The index of the current item.
-   * @param scrollIntoView True if the pie should rotate until the current item is centered.
-   *                       False otherwise. If this parameter is false, the pie rotation
-   *                       will not change.
+   * @param renderMode RENDER_MODE_ARCS or RENDER_MODE_COMPOSITE.
    */
-  private void setCurrentItem(int currentItem, boolean scrollIntoView) {
-    mCurrentItem = currentItem;
-    if (mCurrentItemChangedListener != null) {
-      mCurrentItemChangedListener.OnCurrentItemChanged(this, currentItem);
-    }
-    if (scrollIntoView) {
-      centerOnCurrentItem();
+  public void setRenderMode(int renderMode) {
+    if (renderMode != RENDER_MODE_ARCS && renderMode != RENDER_MODE_COMPOSITE) {
+      throw new IllegalArgumentException(
+          "RenderMode must be one of RENDER_MODE_ARCS or RENDER_MODE_COMPOSITE"
+      );
     }
-    invalidate();
+    mRenderMode = renderMode;
+    notifySlicesChanged();
+    mPieView.invalidate();
   }
 
   /**
-   * Add a new data item to this view. Adding an item adds a slice to the pie whose
-   * size is proportional to the item's value. As new items are added, the size of each
-   * existing slice is recalculated so that the proportions remain correct.
+   * Returns true if the pie graphic is cached in an offscreen bitmap.
    *
-   * @param label The label text to be shown when this item is selected.
-   * @param value The value of this item.
-   * @param color The ARGB color of the pie slice associated with this item.
-   * @return The index of the newly added item.1
+   * @return True if the pie cache is enabled, false otherwise.
    */
-  public int addItem(String label, float value, int color) {
-    Item it = new Item();
-    it.mLabel = label;
-    it.mColor = color;
-    it.mValue = value;
-
-    // Calculate the highlight color. Saturate at 0xff to make sure that high values
-    // don't result in aliasing.
-    it.mHighlight = Color.argb(
-        0xff,
-        Math.min((int) (mHighlightStrength * (float) Color.red(color)), 0xff),
-        Math.min((int) (mHighlightStrength * (float) Color.green(color)), 0xff),
-        Math.min((int) (mHighlightStrength * (float) Color.blue(color)), 0xff)
-    );
-    mTotal += value;
+  public boolean isPieCacheEnabled() {
+    return mPieCacheEnabled;
+  }
 
-    mData.add(it);
+  /**
+   * Cache the pie graphic in an offscreen bitmap. The slices are then only drawn again
+   * when the data or the size of the chart changes; rotating the pie just draws the
+   * bitmap with a different transform, and the pie no longer switches layer types when
+   * the user touches it. The bitmap costs width * height * 4 bytes.
+   *
+   * @param enabled True to cache the pie graphic, false to draw it on every frame.
+   */
+  public void setPieCacheEnabled(boolean enabled) {
+    if (mPieCacheEnabled == enabled) {
+      return;
+    }
+    mPieCacheEnabled = enabled;
+    mPieView.updateCache();
+    applyLayerPolicy();
+  }
 
-    onDataChanged();
+  /**
+   * Returns the policy that decides which layer type the pie is drawn on.
+   *
+   * @return One of the LAYER_POLICY_* constants.
+   */
+  public int getLayerPolicy() {
+    return mLayerPolicy;
+  }
 
-    return mData.size() - 1;
+  /**
+   * Set the policy that decides which layer type the pie is drawn on. The policy only
+   * applies to the view that draws the pie; the rest of the chart is not layered.
+   *
+   * @param layerPolicy One of LAYER_POLICY_HARDWARE_DURING_INTERACTION,
+   *                    LAYER_POLICY_ALWAYS_HARDWARE, LAYER_POLICY_ALWAYS_SOFTWARE or
+   *                    LAYER_POLICY_AUTO.
+   */
+  public void setLayerPolicy(int layerPolicy) {
+    if (layerPolicy < LAYER_POLICY_HARDWARE_DURING_INTERACTION
+        || layerPolicy > LAYER_POLICY_AUTO) {
+      throw new IllegalArgumentException(
+          "LayerPolicy must be one of the LAYER_POLICY_* constants"
+      );
+    }
+    mLayerPolicy = layerPolicy;
+    applyLayerPolicy();
   }
 
   /**
-   * Creating Drawing objects
+   * Returns the number of times the layer type of the pie has changed.
    *
-   * android.graphics divides drawing into 2:
-   * ->What to draw, handled by Canvas
-   * ->How to draw, handled by Paint
-   * ie Canvas provides mtds to draw a line and Paint provides mtds
-   * to define that lines color.
-   * Canvas has mtd to draw a rectangle , whle Paint defines whether to
-   * fill that retangle with a color or leave it empty.
-   * Simply put {@link Canvas} defines shapes that can be drawn on Screen
-   * while {@link Paint} defines the color, style, font and so forth for each shape you draw.
+   * @return The total number of layer type changes.
+   */
+  public int getLayerTransitionCount() {
+    return mLayerTransitionCount;
+  }
+
+  /**
+   * Returns the number of times the layer type of the pie has changed since the
+   * current or most recent touch gesture started.
    *
-   * So before drawing anything you need to create one or more Paint objects.
-   * Piechart does this in init() which is called in the constructor.
+   * @return The number of layer type changes in the last gesture.
+   */
+  public int getGestureLayerTransitionCount() {
+    return mGestureLayerTransitionCount;
+  }
+
+  /**
+   * Returns the requested detail level.
    *
-   * Note: creating objects ahead of time is an important optimization.
-   * Views are redrawn frequently, and many drawing objects require
-   * expensive initialization.
-   * Creating drawing objects in your onDraw() mtd significantly reduces performance
-   * and can cause UI to appear sluggish.
+   * @return One of DETAIL_LEVEL_AUTO, DETAIL_LEVEL_FULL, DETAIL_LEVEL_REDUCED or
+   *         DETAIL_LEVEL_MINIMAL.
    */
-  private void init(){
+  public int getDetailLevel() {
+    return mDetailLevel;
+  }
 
-    //set up the paint for the label text
-    mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-    mTextPaint.setColor(mTextColor);
-    if (mTextHeight == 0){
-      mTextHeight = mTextPaint.getTextSize();
-    } else{
-      mTextPaint.setTextSize(mTextHeight);
+  /**
+   * Set how much detail is drawn. Small pies can't show gradients, labels or slices
+   * narrower than a pixel anyway, so drawing them at less detail saves time without
+   * changing what can be seen. By default, the level follows the pie diameter; force a
+   * lower level when many charts are on screen at once.
+   *
+   * @param detailLevel One of DETAIL_LEVEL_AUTO, DETAIL_LEVEL_FULL, DETAIL_LEVEL_REDUCED
+   *                    or DETAIL_LEVEL_MINIMAL.
+   */
+  public void setDetailLevel(int detailLevel) {
+    if (detailLevel < DETAIL_LEVEL_AUTO || detailLevel > DETAIL_LEVEL_MINIMAL) {
+      throw new IllegalArgumentException(
+          "detailLevel must be one of DETAIL_LEVEL_AUTO, DETAIL_LEVEL_FULL, "
+              + "DETAIL_LEVEL_REDUCED or DETAIL_LEVEL_MINIMAL");
     }
+    mDetailLevel = detailLevel;
+    updateDetailLevel();
+    notifySlicesChanged();
+  }
 
-    //set up paint for the pie slices
-    mPiePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-    mPiePaint.setStyle(Paint.Style.FILL);
-    mPiePaint.setTextSize(mTextHeight);
+  /**
+   * Returns how the labels are shown.
+   *
+   * @return LABEL_MODE_CURRENT or LABEL_MODE_OUTSIDE.
+   */
+  public int getLabelMode() {
+    return mLabelMode;
+  }
 
-    //set up the paint for the shadow
-    mShadowPaint = new Paint(0);
-    mShadowPaint.setColor(0xff101010);
-    mShadowPaint.setMaskFilter(new BlurMaskFilter(8, BlurMaskFilter.Blur.NORMAL));
+  /**
+   * Set how the labels are shown: the label of the current item beside the pie, or the
+   * labels of all slices around it. Around the pie, the labels are laid out in a column
+   * on each side, labelWidth wide, and the pie moves to the middle to make room for them.
+   * Labels that don't fit between their neighbours are hidden, and all of them are hidden
+   * while the pie moves. Either way, labels are only shown if showText is set.
+   *
+   * @param labelMode LABEL_MODE_CURRENT or LABEL_MODE_OUTSIDE.
+   */
+  public void setLabelMode(int labelMode) {
+    if (labelMode != LABEL_MODE_CURRENT && labelMode != LABEL_MODE_OUTSIDE) {
+      throw new IllegalArgumentException(
+          "labelMode must be one of LABEL_MODE_CURRENT or LABEL_MODE_OUTSIDE");
+    }
+    mLabelMode = labelMode;
+    // The pie bounds depend on the label mode, so lay the chart out again.
+    if (getWidth() > 0) {
+      onSizeChanged(getWidth(), getHeight(), getWidth(), getHeight());
+    }
+    mPointerView.invalidate();
+    invalidate();
+  }
 
+  /**
+   * Returns the detail level the pie is drawn at, after DETAIL_LEVEL_AUTO is resolved.
+   *
+   * @return One of DETAIL_LEVEL_FULL, DETAIL_LEVEL_REDUCED or DETAIL_LEVEL_MINIMAL.
+   */
+  public int getEffectiveDetailLevel() {
+    return mEffectiveDetailLevel;
+  }
 
-    //Add a child view to draw the pie. Putting this in a child view
-    //makes it possible to draw it on a separate hardware layer that rotates
-    //independently
-    mPieView = new PieView(getContext());
-    addView(mPieView);
-    mPieView.rotateTo(mPieRotation);
+  /**
+   * Returns the duration of the transition between data sets.
+   *
+   * @return The transition duration in milliseconds, or 0 if data changes aren't animated.
+   */
+  public long getDataTransitionDuration() {
+    return mTransitionDuration;
+  }
 
-    //the pointer doesn't need hardware acceleration , but in order to show up
-    //in front of the pie it also needs to be on a separate view.
-    mPointerView = new PointerView(getContext());
-    addView(mPointerView);
+  /**
+   * Animate data changes. When the data changes, slices of items that are still there
+   * move to their new angles, new items grow out of their position and removed items
+   * shrink away. Items are matched by label. While the transition runs, the slices are
+   * drawn in flat colors.
+   *
+   * @param duration The transition duration in milliseconds, or 0 to apply data changes
+   *                 immediately.
+   */
+  public void setDataTransitionDuration(long duration) {
+    if (duration < 0) {
+      throw new IllegalArgumentException("duration cannot be negative");
+    }
+    if (mTransitionAnimator == null) {
+      return;
+    }
+    mTransitionDuration = duration;
+    if (duration == 0) {
+      mTransitionAnimator.cancel();
+      mTransition.reset();
+      mPieView.invalidateContent();
+    } else if (!mTransitionAnimator.isRunning()) {
+      mTransition.snapTo(mSlices);
+    }
+  }
 
-    /**
-     * Make Your Transitions Smoooth
-     *
-     * Set up an animator to animate the PieRotation property. This is used to
-     * correct the pie's orientation after the user lets go of it.
-     *
-     * Users expect UI transitions to be smooth and not stop abruptly. Android
-     * introduced property animation framework intoduced in Android 3.0, makes
-     * smooth transitions easy.
-     *
-     * To use the animation system, whenever a property changes that will affect your
-     * view's appearance, do not change the property directly. Instead use {@link ValueAnimator}
-     * to make the change.
-     * In the following example, modify the currently selected pie slice in PieChart that causes
-     * the entire chart to rotate so that the selection pointer is centered in the selected slice.
-     * {@link ValueAnimator} changes the rotation over a period of several hundred miliseconds, rather
-     * than immediately setting the new rotation value.
-     */
-    if (Build.VERSION.SDK_INT >= 11){
-      mAutoCenterAnimator = ObjectAnimator.ofInt(PieChart.this, "PieRotation", 0);
+  /**
+   * Set the interpolator of the transition between data sets.
+   *
+   * @param interpolator The interpolator, or null for linear interpolation.
+   */
+  public void setDataTransitionInterpolator(TimeInterpolator interpolator) {
+    if (mTransitionAnimator != null) {
+      mTransitionAnimator.setInterpolator(interpolator);
+    }
+  }
 
-      //Add a listener to hook the onAnimationEnd event so that we can do
-      //some cleanup when the pie stops moving
-      mAutoCenterAnimator.addListener(new Animator.AnimatorListener() {
-        @Override public void onAnimationStart(Animator animator) {
+  /**
+   * Returns the number of data items in this view.
+   */
+  public int getItemCount() {
+    return mStore.size();
+  }
+
+  /**
+   * Register a callback to be invoked when the current item changes.
+   *
+   * @param listener The callback, or null to remove it.
+   */
+  public void setOnCurrentItemChangedListener(OnCurrentItemChangedListener listener) {
+    mCurrentItemChangedListener = listener;
+  }
+
+  /**
+   * Register a callback to be invoked when the pie stops moving, after a fling, a scroll
+   * or centering on a slice, with a current item other than the one it last came to
+   * rest on.
+   *
+   * @param listener The callback, or null to remove it.
+   */
+  public void setOnCurrentItemSettledListener(OnCurrentItemSettledListener listener) {
+    mCurrentItemSettledListener = listener;
+  }
+
+  /**
+   * Register a callback to be invoked when a slice is tapped.
+   *
+   * @param listener The callback, or null to remove it.
+   */
+  public void setOnSliceClickListener(OnSliceClickListener listener) {
+    mSliceClickListener = listener;
+  }
+
+  /**
+   * Register a callback to be invoked when a slice is touched and held. Long presses are
+   * only detected while a listener is registered, because a detected long press ends the
+   * scroll gesture: with it, scrolling, pausing and scrolling on no longer works.
+   *
+   * @param listener The callback, or null to remove it.
+   */
+  public void setOnSliceLongClickListener(OnSliceLongClickListener listener) {
+    mSliceLongClickListener = listener;
+    mDetector.setIsLongpressEnabled(listener != null);
+  }
+
+  /**
+   * Find the slice drawn at a point of this view. The point is converted to an angle and
+   * a distance from the pie center; the angle is corrected for the pie rotation and looked
+   * up in the slice angles in O(log n).
+   *
+   * @param x The x position of the point, in the coordinates of this view.
+   * @param y The y position of the point, in the coordinates of this view.
+   * @return The zero-based index of the slice, or -1 if the point is outside the pie or
+   *         in the hole of a donut. In a sunburst, only the innermost ring holds slices.
+   */
+  public int sliceAt(float x, float y) {
+    float dx = x - mPieBounds.centerX();
+    float dy = y - mPieBounds.centerY();
+    float innerRadius = mPieBounds.width() / 2 * mInnerRadius;
+    float radius = innerRadius + ringThickness();
+    float distanceSquared = dx * dx + dy * dy;
+    if (distanceSquared > radius * radius || distanceSquared < innerRadius * innerRadius) {
+      return -1;
+    }
+    return itemAtAngle(PieGeometry.screenAngle(dx, dy));
+  }
+
+  /**
+   * Returns how current item changes are dispatched.
+   *
+   * @return CURRENT_ITEM_DISPATCH_IMMEDIATE or CURRENT_ITEM_DISPATCH_PER_FRAME.
+   */
+  public int getCurrentItemDispatchMode() {
+    return mCurrentItemDispatchMode;
+  }
+
+  /**
+   * Set how current item changes are dispatched to the OnCurrentItemChangedListener.
+   *
+   * @param dispatchMode CURRENT_ITEM_DISPATCH_IMMEDIATE or CURRENT_ITEM_DISPATCH_PER_FRAME.
+   */
+  public void setCurrentItemDispatchMode(int dispatchMode) {
+    if (dispatchMode != CURRENT_ITEM_DISPATCH_IMMEDIATE
+        && dispatchMode != CURRENT_ITEM_DISPATCH_PER_FRAME) {
+      throw new IllegalArgumentException(
+          "dispatchMode must be CURRENT_ITEM_DISPATCH_IMMEDIATE or "
+              + "CURRENT_ITEM_DISPATCH_PER_FRAME");
+    }
+    flushCurrentItemChanged();
+    mCurrentItemDispatchMode = dispatchMode;
+  }
+
+  /**
+   * Returns the number of slices drawn. This is the number of data items, unless thin
+   * slices are folded into an "Other" slice.
+   */
+  public int getSliceCount() {
+    return mSlices.size();
+  }
+
+  /**
+   * Returns the minimum angle of a slice of its own.
+   *
+   * @return The minimum angle in degrees, or 0 if slices aren't folded by angle.
+   */
+  public float getMinSliceAngle() {
+    return mMinSliceAngle;
+  }
+
+  /**
+   * Fold the items whose slice would be narrower than the given angle into a single
+   * "Other" slice. Drawing then only costs as much as the slices that can be seen.
+   *
+   * When items are folded, the current item and the indices passed to and returned by
+   * {@link #setCurrentItem(int)}, {@link #getCurrentItem()} and {@link #itemAtAngle(float)}
+   * refer to the slices drawn. Use {@link #getItemForSlice(int)} and
+   * {@link #getOtherItem(int)} to get back to the data items.
+   *
+   * @param degrees The minimum angle in degrees, or 0 to not fold slices by angle.
+   */
+  public void setMinSliceAngle(float degrees) {
+    if (degrees < 0) {
+      throw new IllegalArgumentException("degrees cannot be negative");
+    }
+    mMinSliceAngle = degrees;
+    notifySlicesChanged();
+  }
+
+  /**
+   * Returns the minimum arc length of a slice of its own.
+   *
+   * @return The minimum arc length in pixels, or 0 if slices aren't folded by size.
+   */
+  public float getMinSliceArcLength() {
+    return mMinSliceArcLength;
+  }
+
+  /**
+   * Fold the items whose slice would be narrower than the given length along the edge of
+   * the pie into a single "Other" slice. Unlike {@link #setMinSliceAngle(float)}, this
+   * folds more items the smaller the pie is.
+   *
+   * @param pixels The minimum arc length in pixels, or 0 to not fold slices by size.
+   */
+  public void setMinSliceArcLength(float pixels) {
+    if (pixels < 0) {
+      throw new IllegalArgumentException("pixels cannot be negative");
+    }
+    mMinSliceArcLength = pixels;
+    notifySlicesChanged();
+  }
+
+  /**
+   * Set the label and color of the slice that thin slices are folded into.
+   *
+   * @param label The label text of the "Other" slice.
+   * @param color The ARGB color of the "Other" slice.
+   */
+  public void setOtherSlice(String label, int color) {
+    mOtherLabel = label;
+    mOtherColor = color;
+    notifySlicesChanged();
+  }
+
+  /**
+   * Returns the data item shown by a slice.
+   *
+   * @param slice The zero-based index of a slice.
+   * @return The zero-based index of the data item, or -1 if the slice is the "Other" slice.
+   */
+  public int getItemForSlice(int slice) {
+    if (slice < 0 || slice >= mSlices.size()) {
+      throw new IndexOutOfBoundsException("slice " + slice + ", size " + mSlices.size());
+    }
+    return mSlices == mStore ? slice : mAggregator.sourceIndex(slice);
+  }
+
+  /**
+   * Returns the index of the "Other" slice.
+   *
+   * @return The zero-based index of the "Other" slice, or -1 if no items are folded.
+   */
+  public int getOtherSlice() {
+    return mSlices == mStore ? -1 : mAggregator.otherIndex();
+  }
+
+  /**
+   * Returns the number of data items folded into the "Other" slice.
+   */
+  public int getOtherItemCount() {
+    return mSlices == mStore ? 0 : mAggregator.memberCount();
+  }
+
+  /**
+   * Returns a data item folded into the "Other" slice.
+   *
+   * @param index Between 0 and {@link #getOtherItemCount()}. Items are in data order.
+   * @return The zero-based index of the data item.
+   */
+  public int getOtherItem(int index) {
+    if (mSlices == mStore) {
+      throw new IndexOutOfBoundsException("index " + index + ", size 0");
+    }
+    return mAggregator.member(index);
+  }
+
+  /**
+   * Show a hierarchy as a sunburst: the nodes at the top of the tree form the innermost
+   * ring, and the children of every node share out its angle in the ring outside it. The
+   * rings split the radius evenly, outside the hole set with setInnerRadius().
+   *
+   * The innermost ring becomes the items of the chart, so rotation, the current item, the
+   * label and slice clicks work on it just like on a pie. Use nodeAt() to find a node of
+   * any ring. The chart shows the tree as it is when this method is called; after changing
+   * the tree, call this method again to show the changes.
+   *
+   * @param tree The hierarchy to show, or null to go back to a plain pie. The items of
+   *             the innermost ring stay in the chart.
+   */
+  public void setHierarchy(SunburstTree tree) {
+    mHierarchy = tree;
+    if (tree != null) {
+      tree.layout();
+      if (mSunburst == null) {
+        mSunburst = mSpareSunburst != null ? mSpareSunburst : new SunburstTree();
+        mSpareSunburst = null;
+      }
+      mSunburst.set(tree);
+      tree = mSunburst;
+      int count = tree.ringCount() > 0 ? tree.ringSize(0) : 0;
+      beginUpdate();
+      try {
+        mStore.clear();
+        mStore.ensureCapacity(count);
+        mCurrentItem = 0;
+        for (int i = 0; i < count; ++i) {
+          int node = tree.ringNode(0, i);
+          appendItem(tree.label(node), tree.value(node), tree.color(node));
+        }
+        notifyDataChanged(0);
+      } finally {
+        endUpdate();
+      }
+    } else {
+      if (mSunburst != null) {
+        mSpareSunburst = mSunburst;
+        mSunburst = null;
+      }
+      // Thin slices may be folded again.
+      notifyDataChanged();
+    }
+    mPieView.updateRing();
+  }
+
+  /**
+   * Returns the hierarchy shown as a sunburst, or null if the chart is a plain pie.
+   */
+  public SunburstTree getHierarchy() {
+    return mHierarchy;
+  }
+
+  /**
+   * Returns the number of rings drawn: 1 for a pie or a donut, the depth of the hierarchy
+   * for a sunburst.
+   */
+  public int getRingCount() {
+    return mSunburst == null ? 1 : Math.max(mSunburst.ringCount(), 1);
+  }
+
+  /**
+   * Find the sunburst node drawn at a point of this view. The distance from the pie center
+   * picks the ring, and the angle is looked up among the nodes of that ring in O(log n).
+   *
+   * @param x The x position of the point, in the coordinates of this view.
+   * @param y The y position of the point, in the coordinates of this view.
+   * @return The index of the node in the hierarchy as it was when it was set, or -1 if no
+   *         node is drawn at the point or no hierarchy is shown.
+   */
+  public int nodeAt(float x, float y) {
+    if (mSunburst == null || mSunburst.ringCount() == 0) {
+      return -1;
+    }
+    float dx = x - mPieBounds.centerX();
+    float dy = y - mPieBounds.centerY();
+    float radius = mPieBounds.width() / 2;
+    float innerRadius = radius * mInnerRadius;
+    float distance = (float) Math.sqrt(dx * dx + dy * dy);
+    if (distance > radius || distance < innerRadius) {
+      return -1;
+    }
+    int ring = (int) ((distance - innerRadius) / ringThickness());
+    ring = Math.min(ring, mSunburst.ringCount() - 1);
+    return mSunburst.nodeAt(ring,
+        PieGeometry.pieAngle(PieGeometry.screenAngle(dx, dy), mPieRotation));
+  }
+
+  /**
+   * Returns the width of each ring, in pixels.
+   */
+  private float ringThickness() {
+    return mPieBounds.width() / 2 * (1 - mInnerRadius) / getRingCount();
+  }
+
+  /**
+   * Returns the index of the currently selected data item.
+   *
+   * @return The zero-based index of the currently selected data item.
+   */
+  public int getCurrentItem() {
+    return mCurrentItem;
+  }
+
+  /**
+   * Returns the index of the data item whose slice is currently at the given angle. The
+   * angle is measured the same way as the position of the current-item pointer, in degrees
+   * counterclockwise from the positive x axis, and the current pie rotation is taken into
+   * account. This is a binary search over the slice angles, so it takes O(log n) time.
+   *
+   * @param angle The angle to look up, in degrees.
+   * @return The zero-based index of the data item, or -1 if there is no data.
+   */
+  public int itemAtAngle(float angle) {
+    return mSlices.indexOfAngle(PieGeometry.pieAngle(angle, mPieRotation));
+  }
+
+  /**
+   * Set the currently selected item. Calling this function will set the current selection
+   * and rotate the pie to bring it into view.
+   *
+   * @param currentItem The zero-based index of the item to select.
+   */
+  public void setCurrentItem(int currentItem) {
+    setCurrentItem(currentItem, true);
+  }
+
+  /**
+   * Set the current item by index. Optionally, scroll the current item into view. This version
+   * is for internal use--the scrollIntoView option is always true for external callers.
+   *
+   * @param currentItem    The index of the current item.
+   * @param scrollIntoView True if the pie should rotate until the current item is centered.
+   *                       False otherwise. If this parameter is false, the pie rotation
+   *                       will not change.
+   */
+  private void setCurrentItem(int currentItem, boolean scrollIntoView) {
+    mCurrentItem = currentItem;
+    if (mCurrentItemDispatchMode == CURRENT_ITEM_DISPATCH_IMMEDIATE) {
+      notifyCurrentItemChanged();
+    } else if (!mCurrentItemDispatchPending) {
+      mCurrentItemDispatchPending = true;
+      postDispatchFrame();
+    }
+    if (scrollIntoView) {
+      centerOnCurrentItem();
+    }
+    invalidate();
+  }
+
+  private void notifyCurrentItemChanged() {
+    mDispatchedItem = mCurrentItem;
+    if (mCurrentItemChangedListener != null) {
+      mCurrentItemChangedListener.OnCurrentItemChanged(this, mCurrentItem);
+    }
+  }
+
+  /**
+   * Dispatch a pending per-frame current item change right away.
+   */
+  private void flushCurrentItemChanged() {
+    if (!mCurrentItemDispatchPending) {
+      return;
+    }
+    mCurrentItemDispatchPending = false;
+    if (Build.VERSION.SDK_INT >= 16){
+      Choreographer.getInstance().removeFrameCallback(mDispatchFrameCallback);
+    }else{
+      mMainHandler.removeCallbacks(mDispatchRunnable);
+    }
+    if (mCurrentItem != mDispatchedItem) {
+      notifyCurrentItemChanged();
+    }
+  }
+
+  private void postDispatchFrame() {
+    if (Build.VERSION.SDK_INT >= 16){
+      Choreographer.getInstance().postFrameCallback(mDispatchFrameCallback);
+    }else{
+      mMainHandler.post(mDispatchRunnable);
+    }
+  }
+
+  /**
+   * Called when the pie stops moving.
+   */
+  private void onMotionSettled() {
+    mPieView.decelerate();
+    if (drawsSliceLabels()) {
+      // Show the slice labels again, placed for where the pie stopped.
+      invalidate();
+    }
+    flushCurrentItemChanged();
+    if (mCurrentItem != mSettledItem) {
+      mSettledItem = mCurrentItem;
+      if (mCurrentItemSettledListener != null) {
+        mCurrentItemSettledListener.onCurrentItemSettled(this, mCurrentItem);
+      }
+    }
+  }
+
+  /**
+   * Add a new data item to this view. Adding an item adds a slice to the pie whose
+   * size is proportional to the item's value. As new items are added, the size of each
+   * existing slice is recalculated so that the proportions remain correct.
+   *
+   * @param label The label text to be shown when this item is selected.
+   * @param value The value of this item.
+   * @param color The ARGB color of the pie slice associated with this item.
+   * @return The index of the newly added item.1
+   */
+  public int addItem(String label, float value, int color) {
+    appendItem(label, value, color);
+    notifyDataChanged(mStore.size() - 1);
+
+    return mStore.size() - 1;
+  }
+
+  /**
+   * Replace all of the data items in this view with the given ones. The slice angles and
+   * shaders are recalculated once for the whole data set, which makes this much cheaper
+   * than clearing the chart and calling {@link #addItem(String, float, int)} for each item.
+   *
+   * @param labels The label text of each item.
+   * @param values The value of each item.
+   * @param colors The ARGB color of the pie slice associated with each item.
+   */
+  public void setItems(String[] labels, float[] values, int[] colors) {
+    if (labels.length != values.length || labels.length != colors.length) {
+      throw new IllegalArgumentException(
+          "labels, values and colors must all have the same length");
+    }
+    beginUpdate();
+    try {
+      mStore.clear();
+      mStore.ensureCapacity(labels.length);
+      mCurrentItem = 0;
+      for (int i = 0; i < labels.length; ++i) {
+        appendItem(labels[i], values[i], colors[i]);
+      }
+      notifyDataChanged(0);
+    } finally {
+      endUpdate();
+    }
+  }
+
+  /**
+   * Replace all of the data items in this view from any thread. The slice angles and
+   * highlight colors are calculated on the calling thread; the UI thread then swaps the
+   * finished data set in as a whole, so it never waits for the producer and never draws
+   * a partly updated data set. If several data sets are published before the UI thread
+   * gets to them, only the last one is shown.
+   *
+   * The data set swapped in replaces any changes made with the other data methods in the
+   * meantime.
+   *
+   * @param labels The label text of each item.
+   * @param values The value of each item.
+   * @param colors The ARGB color of the pie slice associated with each item.
+   */
+  public void publishItems(String[] labels, float[] values, int[] colors) {
+    if (labels.length != values.length || labels.length != colors.length) {
+      throw new IllegalArgumentException(
+          "labels, values and colors must all have the same length");
+    }
+    // Fill a store that only this thread can reach.
+    SliceStore store = mSpareStore.getAndSet(null);
+    if (store == null) {
+      store = new SliceStore(labels.length);
+    }
+    store.clear();
+    store.ensureCapacity(labels.length);
+    float highlightStrength = mHighlightStrength;
+    for (int i = 0; i < labels.length; ++i) {
+      store.add(labels[i], values[i], colors[i], highlightColor(colors[i], highlightStrength));
+    }
+    store.layout();
+
+    // If an earlier data set is still waiting, it is replaced and its store reused;
+    // the swap that was posted for it picks up this one instead.
+    SliceStore stale = mPendingStore.getAndSet(store);
+    if (stale != null) {
+      mSpareStore.set(stale);
+    } else {
+      mMainHandler.post(mSwapStoreRunnable);
+    }
+  }
+
+  /**
+   * Make the latest published data set the current one. Runs on the UI thread.
+   */
+  private void swapInPendingStore() {
+    SliceStore store = mPendingStore.getAndSet(null);
+    if (store == null) {
+      return;
+    }
+    SliceStore old = mStore;
+    mStore = store;
+    // Don't leave the old store on screen until the data is recalculated; a producer may
+    // refill it as soon as it is the spare.
+    if (mSlices == old) {
+      mSlices = store;
+    }
+    mSpareStore.set(old);
+    if (mCurrentItem >= store.size()) {
+      mCurrentItem = 0;
+    }
+    notifyDataChanged();
+  }
+
+  /**
+   * Change the value of a data item. The slices after it shift by the change; the other
+   * items are not reprocessed.
+   *
+   * @param index The zero-based index of the item to change.
+   * @param value The new value of the item.
+   */
+  public void updateItemValue(int index, float value) {
+    mStore.setValue(index, value);
+    notifyDataChanged(index);
+  }
+
+  /**
+   * Remove a data item from this view.
+   *
+   * @param index The zero-based index of the item to remove.
+   */
+  public void removeItem(int index) {
+    mStore.remove(index);
+    if (mCurrentItem > index || mCurrentItem >= mStore.size()) {
+      mCurrentItem = Math.max(mCurrentItem - 1, 0);
+    }
+    notifyDataChanged(index);
+  }
+
+  /**
+   * Move a data item to a new position. The items in between shift by one position.
+   *
+   * @param from The current zero-based index of the item.
+   * @param to   The zero-based index the item should end up at.
+   */
+  public void moveItem(int from, int to) {
+    mStore.move(from, to);
+    // Keep the same item current.
+    if (mCurrentItem == from) {
+      mCurrentItem = to;
+    } else if (from < mCurrentItem && mCurrentItem <= to) {
+      mCurrentItem--;
+    } else if (to <= mCurrentItem && mCurrentItem < from) {
+      mCurrentItem++;
+    }
+    notifyDataChanged(Math.min(from, to));
+  }
+
+  /**
+   * Remove all data items from this view.
+   */
+  public void clear() {
+    mStore.clear();
+    mCurrentItem = 0;
+    notifyDataChanged();
+  }
+
+  /**
+   * Start a batch of data changes. Until the matching {@link #endUpdate()} is called,
+   * changes to the data items are only recorded and the drawing objects of the slices
+   * are not recalculated. Changes that reach every slice, like a new size, render mode or
+   * detail level, wait for the end of the batch too. Calls may be nested.
+   */
+  public void beginUpdate() {
+    mUpdateDepth++;
+  }
+
+  /**
+   * Finish a batch of data changes started with {@link #beginUpdate()}. When the outermost
+   * batch ends, the slice geometry is recalculated once for all of the changes.
+   */
+  public void endUpdate() {
+    if (mUpdateDepth == 0) {
+      throw new IllegalStateException("endUpdate() called without matching beginUpdate()");
+    }
+    mUpdateDepth--;
+    if (mUpdateDepth == 0 && mDataDirty) {
+      onDataChanged();
+    } else if (mUpdateDepth == 0 && mSlicesDirty) {
+      onDataChanged(false);
+    }
+  }
+
+  /**
+   * Build a new data item and add it to the end of the data list, without recalculating
+   * the slice geometry.
+   */
+  private void appendItem(String label, float value, int color) {
+    mStore.add(label, value, color, highlightColor(color, mHighlightStrength));
+  }
+
+  /**
+   * Calculate the highlight color of a slice. Saturate at 0xff to make sure that high
+   * values don't result in aliasing.
+   */
+  private static int highlightColor(int color, float highlightStrength) {
+    return Color.argb(
+        0xff,
+        Math.min((int) (highlightStrength * (float) Color.red(color)), 0xff),
+        Math.min((int) (highlightStrength * (float) Color.green(color)), 0xff),
+        Math.min((int) (highlightStrength * (float) Color.blue(color)), 0xff)
+    );
+  }
+
+  /**
+   * Recalculate the slice geometry now, or defer it to the end of the current batch if
+   * one is open.
+   */
+  private void notifyDataChanged() {
+    notifyDataChanged(0);
+  }
+
+  /**
+   * Recalculate the slice geometry after a change that left the items before
+   * {@code firstChanged} alone.
+   */
+  private void notifyDataChanged(int firstChanged) {
+    mFirstChangedItem = Math.min(mFirstChangedItem, firstChanged);
+    if (mUpdateDepth > 0) {
+      mDataDirty = true;
+    } else {
+      onDataChanged();
+    }
+  }
+
+  /**
+   * Recalculate every slice after a change that isn't to the data, like a new size or
+   * render mode, now or at the end of the current batch if one is open.
+   */
+  private void notifySlicesChanged() {
+    if (mUpdateDepth > 0) {
+      mSlicesDirty = true;
+    } else {
+      onDataChanged(false);
+    }
+  }
+
+  /**
+   * Creating Drawing objects
+   *
+   * android.graphics divides drawing into 2:
+   * ->What to draw, handled by Canvas
+   * ->How to draw, handled by Paint
+   * ie Canvas provides mtds to draw a line and Paint provides mtds
+   * to define that lines color.
+   * Canvas has mtd to draw a rectangle , whle Paint defines whether to
+   * fill that retangle with a color or leave it empty.
+   * Simply put {@link Canvas} defines shapes that can be drawn on Screen
+   * while {@link Paint} defines the color, style, font and so forth for each shape you draw.
+   *
+   * So before drawing anything you need to create one or more Paint objects.
+   * Piechart does this in init() which is called in the constructor.
+   *
+   * Note: creating objects ahead of time is an important optimization.
+   * Views are redrawn frequently, and many drawing objects require
+   * expensive initialization.
+   * Creating drawing objects in your onDraw() mtd significantly reduces performance
+   * and can cause UI to appear sluggish.
+   */
+  private void init(){
+
+    //set up the paint for the label text
+    mTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    mTextPaint.setColor(mTextColor);
+    if (mTextHeight == 0){
+      mTextHeight = mTextPaint.getTextSize();
+    } else{
+      mTextPaint.setTextSize(mTextHeight);
+    }
+    mLabels = new LabelCache(mTextPaint);
+    float density = getResources().getDisplayMetrics().density;
+    mLabelLeaderLength = LABEL_LEADER_LENGTH_DP * density;
+    mLabelGap = LABEL_GAP_DP * density;
+    invalidateLabels();
+
+    //set up paint for the pie slices
+    mPiePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    mPiePaint.setStyle(Paint.Style.FILL);
+    mPiePaint.setTextSize(mTextHeight);
+
+    mFlatPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    mFlatPaint.setStyle(Paint.Style.FILL);
+
+    mRingPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    mRingPaint.setStyle(Paint.Style.STROKE);
+
+    //set up the paint for the shadow
+    mShadowPaint = new Paint(0);
+    mShadowPaint.setColor(0xff101010);
+    mShadowPaint.setMaskFilter(
+        new BlurMaskFilter(SHADOW_BLUR_RADIUS, BlurMaskFilter.Blur.NORMAL));
+
+    //The shadow bitmap only holds coverage, the color comes from this paint
+    mShadowBitmapPaint = new Paint(0);
+    mShadowBitmapPaint.setColor(0xff101010);
+
+
+    //Add a child view to draw the pie. Putting this in a child view
+    //makes it possible to draw it on a separate hardware layer that rotates
+    //independently
+    mPieView = new PieView(getContext());
+    addView(mPieView);
+    mPieView.rotateTo(mPieRotation);
+    applyLayerPolicy();
+
+    //the pointer doesn't need hardware acceleration , but in order to show up
+    //in front of the pie it also needs to be on a separate view.
+    mPointerView = new PointerView(getContext());
+    addView(mPointerView);
+
+    /**
+     * Make Your Transitions Smoooth
+     *
+     * Set up an animator to animate the PieRotation property. This is used to
+     * correct the pie's orientation after the user lets go of it.
+     *
+     * Users expect UI transitions to be smooth and not stop abruptly. Android
+     * introduced property animation framework intoduced in Android 3.0, makes
+     * smooth transitions easy.
+     *
+     * To use the animation system, whenever a property changes that will affect your
+     * view's appearance, do not change the property directly. Instead use {@link ValueAnimator}
+     * to make the change.
+     * In the following example, modify the currently selected pie slice in PieChart that causes
+     * the entire chart to rotate so that the selection pointer is centered in the selected slice.
+     * {@link ValueAnimator} changes the rotation over a period of several hundred miliseconds, rather
+     * than immediately setting the new rotation value.
+     */
+    if (Build.VERSION.SDK_INT >= 11){
+      // Animate the fraction rather than the PieRotation property itself. An
+      // ObjectAnimator would call setPieRotation() through reflection and box the
+      // rotation on every frame.
+      mAutoCenterAnimator = ValueAnimator.ofFloat(0, 1);
+      mAutoCenterAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+        @Override public void onAnimationUpdate(ValueAnimator valueAnimator) {
+          beginAllocationSection();
+          float fraction = valueAnimator.getAnimatedFraction();
+          setPieRotation(mAutoCenterStartRotation
+              + (mAutoCenterTargetRotation - mAutoCenterStartRotation) * fraction);
+          endAllocationSection();
+        }
+      });
+
+      //Add a listener to hook the onAnimationEnd event so that we can do
+      //some cleanup when the pie stops moving
+      mAutoCenterAnimator.addListener(new Animator.AnimatorListener() {
+        @Override public void onAnimationStart(Animator animator) {
 
         }
 
         @Override public void onAnimationEnd(Animator animator) {
-          mPieView.decelerate();
+          beginAllocationSection();
+          onMotionSettled();
+          endAllocationSection();
         }
 
         @Override public void onAnimationCancel(Animator animator) {
@@ -589,31 +1784,98 @@ public class PieChart extends ViewGroup {
     mDetector = new GestureDetector(PieChart.this.getContext(), new GestureListener());
 
     /**
-     * create a {@link Scroller} to handle the fling gesture. 
+     * The {@link FlingEngine} doesn't run by itself, it just works out the rotation for
+     * the frame time we give it. So we have to have a way to call it every frame until
+     * the fling ends. From API 16 a {@link Choreographer} frame callback runs exactly once
+     * per frame and tells us the frame time; older versions post a Handler message per
+     * frame instead.
      */
-    if (Build.VERSION.SDK_INT < 11){
-      mScroller = new Scroller(getContext());
+    if (Build.VERSION.SDK_INT >= 16){
+      mFlingFrameCallback = new Choreographer.FrameCallback() {
+        @Override public void doFrame(long frameTimeNanos) {
+          doFlingFrame(frameTimeNanos);
+        }
+      };
     }else{
-      mScroller = new Scroller(getContext(), null, true);
+      mFlingFrameRunnable = new Runnable() {
+        @Override public void run() {
+          doFlingFrame(System.nanoTime());
+        }
+      };
     }
-    /**
-     * The {@link Scroller} doesn't support any built in animations functions
-     * it just supplies values when we ask it to. So we have to have a way to call
-     * it every frame until the fling ends. This code absolutely uses a {@link ValueAnimator}
-     * object to generate a callback on every animation frame. We don't use the animated value at all.
-     */
+
+    // Per-frame current item dispatch runs on the same frame clock as the fling.
+    if (Build.VERSION.SDK_INT >= 16){
+      mDispatchFrameCallback = new Choreographer.FrameCallback() {
+        @Override public void doFrame(long frameTimeNanos) {
+          flushCurrentItemChanged();
+        }
+      };
+    }else{
+      mDispatchRunnable = new Runnable() {
+        @Override public void run() {
+          flushCurrentItemChanged();
+        }
+      };
+    }
+
+    // Tells the allocation tracker which frame the sections that follow belong to. It
+    // posts itself again as soon as it runs, so it runs ahead of the callbacks the chart
+    // posts later in a frame, like the next fling frame.
+    if (Build.VERSION.SDK_INT >= 16){
+      mAllocationFrameCallback = new Choreographer.FrameCallback() {
+        @Override public void doFrame(long frameTimeNanos) {
+          mFrameTimeNanos = frameTimeNanos;
+          if (mAllocationTracker != null) {
+            Choreographer.getInstance().postFrameCallback(this);
+          }
+        }
+      };
+    }
+
+    // A single animator drives the whole data transition; every slice is interpolated
+    // from the same fraction.
     if (Build.VERSION.SDK_INT >= 11){
-      mScrollAnimator = ValueAnimator.ofFloat(0, 1);
-      mScrollAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+      mTransitionAnimator = ValueAnimator.ofFloat(0, 1);
+      mTransitionAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
         @Override public void onAnimationUpdate(ValueAnimator valueAnimator) {
-          tickScrollAnimation();
+          beginAllocationSection();
+          mTransition.setFraction(valueAnimator.getAnimatedFraction());
+          mPieView.invalidateContent();
+          endAllocationSection();
+        }
+      });
+      mTransitionAnimator.addListener(new Animator.AnimatorListener() {
+        @Override public void onAnimationStart(Animator animator) {
+          mTransitionCanceled = false;
+        }
+
+        @Override public void onAnimationEnd(Animator animator) {
+          beginAllocationSection();
+          // A canceled transition is either restarted from where it stopped or dropped
+          // altogether, so don't jump to its end.
+          if (!mTransitionCanceled) {
+            mTransition.finish();
+            mPieView.invalidateContent();
+            // The slice labels are hidden while the slices move.
+            invalidate();
+          }
+          endAllocationSection();
+        }
+
+        @Override public void onAnimationCancel(Animator animator) {
+          mTransitionCanceled = true;
+        }
+
+        @Override public void onAnimationRepeat(Animator animator) {
+
         }
       });
     }
 
-    // Turn off long press--this control doesn't use it, and if long press is enabled,
-    // you can't scroll for a bit, pause, then scroll some more (the pause is interpreted
-    // as a long press, apparently)
+    // Turn off long press--this control only uses it for the slice long-click listener,
+    // and if long press is enabled, you can't scroll for a bit, pause, then scroll some
+    // more (the pause is interpreted as a long press, apparently)
     mDetector.setIsLongpressEnabled(false);
 
 
@@ -629,25 +1891,242 @@ public class PieChart extends ViewGroup {
 
   }
 
-  private void tickScrollAnimation() {
-    if(!mScroller.isFinished()){
-      mScroller.computeScrollOffset();
-      setPieRotation(mScroller.getCurrY());
-    }else{
-      mScrollAnimator.cancel();
-      onScrollFinished();
+  /**
+   * Set how quickly the pie slows down after a fling.
+   *
+   * @param friction The decay rate of the fling velocity, per second. The default is
+   *                 {@link FlingEngine#DEFAULT_FRICTION}.
+   */
+  public void setFlingFriction(float friction) {
+    mFling.setFriction(friction);
+  }
+
+  /**
+   * Spin the pie with the given velocity. If the pointer is centered in slices, the fling
+   * is aimed to come to rest with the pointer in the middle of the slice nearest to
+   * where it would have stopped.
+   *
+   * @param velocity The initial velocity, in degrees per second.
+   */
+  private void startFling(float velocity) {
+    mFling.start(mPieRotation, velocity, System.nanoTime());
+    if (!mFling.isRunning()) {
+      onScrollFinished();
+      return;
+    }
+    if (mAutoCenterInSlice) {
+      mFling.setTarget(snapRotation(mFling.getRestingAngle()));
+    }
+    if (mMetrics != null) {
+      mMetrics.flingStarted();
+    }
+    postFlingFrame();
+  }
+
+  /**
+   * Returns the rotation closest to the given one that puts the pointer in the middle of
+   * a slice.
+   */
+  private float snapRotation(float rotation) {
+    float dataAngle = PieGeometry.pieAngle(mCurrentItemAngle, rotation);
+    int item = mSlices.indexOfAngle(dataAngle);
+    if (item < 0) {
+      return rotation;
+    }
+    float center = mSlices.startAngle(item) + mSlices.sweepAngle(item) / 2;
+    return rotation + center - dataAngle;
+  }
+
+  private void postFlingFrame() {
+    if (Build.VERSION.SDK_INT >= 16){
+      Choreographer.getInstance().postFrameCallback(mFlingFrameCallback);
+    }else{
+      mMainHandler.postDelayed(mFlingFrameRunnable, FALLBACK_FRAME_DELAY);
+    }
+  }
+
+  private void cancelFlingFrame() {
+    if (Build.VERSION.SDK_INT >= 16){
+      Choreographer.getInstance().removeFrameCallback(mFlingFrameCallback);
+    }else{
+      mMainHandler.removeCallbacks(mFlingFrameRunnable);
+    }
+  }
+
+  /**
+   * Move the fling one frame further.
+   *
+   * @param frameNanos The time of the frame, in nanoseconds.
+   */
+  private void doFlingFrame(long frameNanos) {
+    mFrameTimeNanos = frameNanos;
+    beginAllocationSection();
+    long start = metricsStart();
+    if (mMetrics != null) {
+      mMetrics.flingFrame(frameNanos);
+    }
+    boolean running = mFling.step(frameNanos);
+    // Does nothing if the rotation didn't change.
+    setPieRotation(mFling.getAngle());
+    if (running) {
+      postFlingFrame();
+    } else {
+      if (mMetrics != null) {
+        mMetrics.flingEnded();
+      }
+      if (mAutoCenterInSlice) {
+        // The fling was aimed at the middle of a slice already.
+        onMotionSettled();
+      } else {
+        onScrollFinished();
+      }
+    }
+    recordMetric(PieChartMetrics.PHASE_SCROLL_TICK, start);
+    endAllocationSection();
+  }
+
+  /**
+   * Turn allocation tracking on or off. While it is on, every allocation made while the
+   * chart draws or animates is counted per frame by the tracker returned from
+   * {@link #getAllocationTracker()}. This is a debugging aid; the counts are only
+   * meaningful in debuggable builds. From API 16 the frames are told apart by the frame
+   * time of the Choreographer, which means a callback runs on every frame while tracking
+   * is on.
+   *
+   * @param enabled True to count allocations, false to stop counting.
+   */
+  public void setAllocationTrackingEnabled(boolean enabled) {
+    if (enabled == (mAllocationTracker != null)) {
+      return;
+    }
+    if (enabled) {
+      if (Build.VERSION.SDK_INT >= 16){
+        mFrameTimeNanos = System.nanoTime();
+        mAllocationTracker = new FrameAllocationTracker(
+            new FrameAllocationTracker.FrameClock() {
+              @Override public long frameTime() {
+                return mFrameTimeNanos;
+              }
+            });
+        Choreographer.getInstance().postFrameCallback(mAllocationFrameCallback);
+      }else{
+        mAllocationTracker = new FrameAllocationTracker();
+      }
+      mAllocationTracker.start();
+    } else {
+      if (Build.VERSION.SDK_INT >= 16){
+        Choreographer.getInstance().removeFrameCallback(mAllocationFrameCallback);
+      }
+      mAllocationTracker.stop();
+      mAllocationTracker = null;
+    }
+  }
+
+  /**
+   * Returns the allocation tracker, or null if allocation tracking is off.
+   *
+   * @return The allocation tracker.
+   */
+  public FrameAllocationTracker getAllocationTracker() {
+    return mAllocationTracker;
+  }
+
+  /**
+   * Turn the timing and jank metrics on or off. While they are on, the chart records how
+   * long each of its hot phases takes, how many frames its flings drop and how often its
+   * data changes, in the object returned from {@link #getMetrics()}.
+   *
+   * @param enabled True to record metrics, false to stop recording.
+   */
+  public void setMetricsEnabled(boolean enabled) {
+    if (enabled == (mMetrics != null)) {
+      return;
+    }
+    if (enabled) {
+      WindowManager windowManager =
+          (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+      float refreshRate = windowManager.getDefaultDisplay().getRefreshRate();
+      if (refreshRate < 1) {
+        refreshRate = 60;
+      }
+      mMetrics = new PieChartMetrics((long) (1000000000L / refreshRate));
+    } else {
+      mMetrics = null;
+    }
+  }
+
+  /**
+   * Returns the metrics, or null if metrics are off.
+   *
+   * @return The metrics.
+   */
+  public PieChartMetrics getMetrics() {
+    return mMetrics;
+  }
+
+  /**
+   * Returns the start time of a phase to pass to {@link #recordMetric(int, long)}, or 0
+   * if metrics are off.
+   */
+  private long metricsStart() {
+    return mMetrics != null ? System.nanoTime() : 0;
+  }
+
+  private void recordMetric(int phase, long start) {
+    if (mMetrics != null && start != 0) {
+      mMetrics.record(phase, System.nanoTime() - start);
+    }
+  }
+
+  private void beginAllocationSection() {
+    if (mAllocationTracker != null) {
+      mAllocationTracker.beginSection();
+    }
+  }
+
+  private void endAllocationSection() {
+    if (mAllocationTracker != null) {
+      mAllocationTracker.endSection();
     }
   }
 
-  private void setLayerToSW(View v) {
-    if (!v.isInEditMode() && Build.VERSION.SDK_INT >= 11) {
-      setLayerType(View.LAYER_TYPE_SOFTWARE, null);
+  /**
+   * Work out the layer type the pie should be on right now.
+   */
+  private int resolveLayerType() {
+    switch (mLayerPolicy) {
+      case LAYER_POLICY_ALWAYS_HARDWARE:
+        return View.LAYER_TYPE_HARDWARE;
+      case LAYER_POLICY_ALWAYS_SOFTWARE:
+        return View.LAYER_TYPE_SOFTWARE;
+      case LAYER_POLICY_AUTO:
+        if (mSlices.size() >= AUTO_LAYER_SLICE_THRESHOLD) {
+          return View.LAYER_TYPE_HARDWARE;
+        }
+        // fall through
+      default:
+        // The pie cache already keeps the rendered pie around, so a layer on top of it
+        // would only cost memory.
+        if (mPieCacheEnabled) {
+          return View.LAYER_TYPE_NONE;
+        }
+        return mInteracting ? View.LAYER_TYPE_HARDWARE : View.LAYER_TYPE_SOFTWARE;
     }
   }
 
-  private void setLayerToHW(View v) {
-    if (!v.isInEditMode() && Build.VERSION.SDK_INT >= 11) {
-      setLayerType(View.LAYER_TYPE_HARDWARE, null);
+  /**
+   * Put the pie view on the layer type chosen by the layer policy, if it isn't there
+   * already.
+   */
+  private void applyLayerPolicy() {
+    if (mPieView.isInEditMode() || Build.VERSION.SDK_INT < 11) {
+      return;
+    }
+    int layerType = resolveLayerType();
+    if (mPieView.getLayerType() != layerType) {
+      mPieView.setLayerType(layerType, null);
+      mLayerTransitionCount++;
+      mGestureLayerTransitionCount++;
     }
   }
 
@@ -659,7 +2138,7 @@ public class PieChart extends ViewGroup {
     if (mAutoCenterInSlice){
       centerOnCurrentItem();
     }else {
-      mPieView.decelerate();
+      onMotionSettled();
     }
   }
 
@@ -668,14 +2147,18 @@ public class PieChart extends ViewGroup {
    * centered in the pie slice of the currently selected item.
    */
   private void centerOnCurrentItem() {
-    Item current = mData.get(getCurrentItem());
-    int targetAngle = current.mStartAngle + (current.mEndAngle - current.mStartAngle)/2;
+    if (mSlices.size() == 0) {
+      return;
+    }
+    int current = getCurrentItem();
+    float targetAngle = mSlices.startAngle(current) + mSlices.sweepAngle(current) / 2;
     targetAngle -= mCurrentItemAngle;
     if (targetAngle < 90 && mPieRotation > 100) targetAngle += 360;
 
     if (Build.VERSION.SDK_INT >= 11){
       //Fancy animated version
-      mAutoCenterAnimator.setIntValues(targetAngle);
+      mAutoCenterStartRotation = mPieRotation;
+      mAutoCenterTargetRotation = targetAngle;
       mAutoCenterAnimator.setDuration(AUTOCENTER_ANIM_DURATION).start();
     }else{
       //Dull non-animated version
@@ -717,8 +2200,12 @@ public class PieChart extends ViewGroup {
     float xpad = (float)(getPaddingLeft() + getPaddingRight());
     float ypad = (float)(getPaddingBottom() + getPaddingTop());
 
-    //Account for the label
-    if (mShowText) xpad += mTextWidth;
+    //Account for the label. Slice labels need a column on each side.
+    if (mShowText) {
+      xpad += mLabelMode == LABEL_MODE_OUTSIDE
+          ? 2 * (mTextWidth + mLabelLeaderLength + mLabelGap)
+          : mTextWidth;
+    }
 
     float ww = (float)w - xpad;
     float hh = (float)h - ypad;
@@ -726,7 +2213,7 @@ public class PieChart extends ViewGroup {
     //Figure out how big we can make the pie.
     float diameter = Math.min(ww, hh);
 
-    mPieBounds = new RectF(
+    mPieBounds.set(
         0.0f,
         0.0f,
         diameter,
@@ -737,36 +2224,31 @@ public class PieChart extends ViewGroup {
     float pointerOffset = mPieBounds.centerY() - mPointerY;
 
     // Make adjustments based on text position
+    mCurrentItemAngle = PieGeometry.pointerAngle(mTextPos == TEXTPOS_LEFT, pointerOffset);
+    pointerOffset = Math.abs(pointerOffset);
     if (mTextPos == TEXTPOS_LEFT) {
       mTextPaint.setTextAlign(Paint.Align.RIGHT);
       if (mShowText) mPieBounds.offset(mTextWidth, 0.0f);
       mTextX = mPieBounds.left;
-
-      if (pointerOffset < 0) {
-        pointerOffset = -pointerOffset;
-        mCurrentItemAngle = 225;
-      } else {
-        mCurrentItemAngle = 135;
-      }
       mPointerX = mPieBounds.centerX() - pointerOffset;
     } else {
       mTextPaint.setTextAlign(Paint.Align.LEFT);
       mTextX = mPieBounds.right;
-
-      if (pointerOffset < 0) {
-        pointerOffset = -pointerOffset;
-        mCurrentItemAngle = 315;
-      } else {
-        mCurrentItemAngle = 45;
-      }
       mPointerX = mPieBounds.centerX() + pointerOffset;
     }
+    if (mLabelMode == LABEL_MODE_OUTSIDE) {
+      // Keep the pie in the middle, between the two label columns.
+      float contentWidth = w - getPaddingLeft() - getPaddingRight();
+      mPieBounds.offsetTo(getPaddingLeft() + (contentWidth - diameter) / 2, getPaddingTop());
+      mSliceLabelColumnWidth = (contentWidth - diameter) / 2 - mLabelLeaderLength - mLabelGap;
+    }
 
-    mShadowBounds = new RectF(
+    mShadowBounds.set(
         mPieBounds.left + 10,
         mPieBounds.bottom + 10,
         mPieBounds.right - 10,
         mPieBounds.bottom + 20);
+    updateShadowBitmap();
 
     // Lay out the child view that actually draws the pie.
     mPieView.layout((int) mPieBounds.left,
@@ -776,7 +2258,167 @@ public class PieChart extends ViewGroup {
     mPieView.setPivot(mPieBounds.width() / 2, mPieBounds.height() / 2);
 
     mPointerView.layout(0, 0, w, h);
-    onDataChanged();
+    updateDetailLevel();
+    notifySlicesChanged();
+  }
+
+  /**
+   * Resolve the detail level for the current pie diameter.
+   */
+  private void updateDetailLevel() {
+    int level = mDetailLevel;
+    if (level == DETAIL_LEVEL_AUTO) {
+      float diameterDp = mPieBounds.width() / getResources().getDisplayMetrics().density;
+      if (diameterDp >= AUTO_DETAIL_FULL_DIAMETER_DP) {
+        level = DETAIL_LEVEL_FULL;
+      } else if (diameterDp >= AUTO_DETAIL_REDUCED_DIAMETER_DP) {
+        level = DETAIL_LEVEL_REDUCED;
+      } else {
+        level = DETAIL_LEVEL_MINIMAL;
+      }
+    }
+    if (level != mEffectiveDetailLevel) {
+      mEffectiveDetailLevel = level;
+      mPointerView.invalidate();
+      invalidate();
+    }
+  }
+
+  /**
+   * Returns true if the slices are drawn with their gradients.
+   */
+  private boolean drawsGradients() {
+    return mEffectiveDetailLevel == DETAIL_LEVEL_FULL;
+  }
+
+  /**
+   * Returns true if the label and the pointer are drawn.
+   */
+  private boolean drawsLabel() {
+    return getShowText() && mLabelMode == LABEL_MODE_CURRENT
+        && mEffectiveDetailLevel != DETAIL_LEVEL_MINIMAL;
+  }
+
+  /**
+   * Returns true if the labels of all slices are drawn around the pie.
+   */
+  private boolean drawsSliceLabels() {
+    return getShowText() && mLabelMode == LABEL_MODE_OUTSIDE
+        && mEffectiveDetailLevel != DETAIL_LEVEL_MINIMAL && mSliceLabelColumnWidth > 0;
+  }
+
+  /**
+   * Returns true while the pie turns or its slices change size.
+   */
+  private boolean isPieMoving() {
+    return mInteracting || isAnimationRunning() || isTransitionRunning();
+  }
+
+  /**
+   * Fit every label again, after the font or the room for the labels changed.
+   */
+  private void invalidateLabels() {
+    mLabels.invalidate();
+    updateLabels(0);
+  }
+
+  /**
+   * Fit and measure the labels of the slices that changed, so that drawing only looks
+   * them up, and place the slice labels again.
+   *
+   * @param first The first slice whose label may have changed.
+   */
+  private void updateLabels(int first) {
+    mLabels.update(mSlices, first, mLabelMode == LABEL_MODE_OUTSIDE
+        ? Math.max(mSliceLabelColumnWidth, 0.0f)
+        : mTextWidth);
+    mSliceLabelsDirty = true;
+    invalidate();
+  }
+
+  /**
+   * Place the labels of all slices around the pie for the current rotation.
+   */
+  private void placeSliceLabels() {
+    int count = mSlices.size();
+    if (mLabelAngles.length < count) {
+      mLabelAngles = new float[mSlices.capacity()];
+    }
+    for (int i = 0; i < count; ++i) {
+      float middle = mSlices.startAngle(i) + mSlices.sweepAngle(i) / 2;
+      mLabelAngles[i] = PieGeometry.normalizeAngle(middle - mPieRotation);
+    }
+    float labelHeight = mTextPaint.descent() - mTextPaint.ascent();
+    mLabelPlacer.setPie(mPieBounds.centerX(), mPieBounds.centerY(), mPieBounds.width() / 2);
+    mLabelPlacer.setLabelSize(labelHeight, mLabelGap, mLabelLeaderLength);
+    // A label may give way to two labels above it before it is hidden.
+    mLabelPlacer.setBounds(getPaddingTop(), getHeight() - getPaddingBottom(),
+        2 * (labelHeight + mLabelGap));
+    mLabelPlacer.place(mLabelAngles, count);
+    mSliceLabelsDirty = false;
+  }
+
+  /**
+   * Draw the visible slice labels and their leader lines.
+   */
+  private void drawSliceLabels(Canvas canvas) {
+    if (mSliceLabelsDirty) {
+      placeSliceLabels();
+    }
+    // Center the text on the height the placer gave the label.
+    float baseline = -(mTextPaint.ascent() + mTextPaint.descent()) / 2;
+    Paint.Align align = mTextPaint.getTextAlign();
+    mTextPaint.setTextAlign(Paint.Align.LEFT);
+    // Items added or removed inside a batch have no label until the batch ends.
+    int count = Math.min(mLabelPlacer.size(), mLabels.size());
+    for (int i = 0; i < count; ++i) {
+      if (!mLabelPlacer.isVisible(i)) {
+        continue;
+      }
+      float y = mLabelPlacer.labelY(i);
+      float elbowX = mLabelPlacer.elbowX(i);
+      float labelX = mLabelPlacer.labelX(i);
+      canvas.drawLine(mLabelPlacer.anchorX(i), mLabelPlacer.anchorY(i), elbowX, y, mTextPaint);
+      canvas.drawLine(elbowX, y, labelX, y, mTextPaint);
+      CharSequence label = mLabels.text(i);
+      float x = mLabelPlacer.isOnLeft(i)
+          ? labelX - mLabelGap - mLabels.width(i)
+          : labelX + mLabelGap;
+      canvas.drawText(label, 0, label.length(), x, y + baseline, mTextPaint);
+    }
+    mTextPaint.setTextAlign(align);
+  }
+
+  /**
+   * Render the blurred shadow into its bitmap. The bitmap is padded by the blur radius
+   * on every side so the blur isn't clipped, and is only reallocated when its size
+   * changes.
+   */
+  private void updateShadowBitmap() {
+    int w = (int) Math.ceil(mShadowBounds.width() + 2 * SHADOW_BLUR_RADIUS);
+    int h = (int) Math.ceil(mShadowBounds.height() + 2 * SHADOW_BLUR_RADIUS);
+    if (mShadowBitmap != null
+        && (mShadowBitmap.getWidth() != w || mShadowBitmap.getHeight() != h)) {
+      mShadowCanvas.setBitmap(null);
+      mShadowBitmap.recycle();
+      mShadowBitmap = null;
+    }
+    if (mShadowBounds.width() <= 0 || mShadowBounds.height() <= 0) {
+      return;
+    }
+    if (mShadowBitmap == null) {
+      mShadowBitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ALPHA_8);
+      mShadowCanvas.setBitmap(mShadowBitmap);
+    } else {
+      mShadowBitmap.eraseColor(0);
+    }
+
+    mShadowBitmapX = mShadowBounds.left - SHADOW_BLUR_RADIUS;
+    mShadowBitmapY = mShadowBounds.top - SHADOW_BLUR_RADIUS;
+    mShadowCanvas.save();
+    mShadowCanvas.translate(-mShadowBitmapX, -mShadowBitmapY);
+    mShadowCanvas.drawOval(mShadowBounds, mShadowPaint);
+    mShadowCanvas.restore();
   }
 
   /**
@@ -784,15 +2426,9 @@ public class PieChart extends ViewGroup {
    * field accordingly.
    */
   private void calcCurrentItem() {
-    int pointerAngle = (mCurrentItemAngle + 360 + mPieRotation) % 360;
-    for (int i = 0; i < mData.size(); ++i) {
-      Item it = mData.get(i);
-      if (it.mStartAngle <= pointerAngle && pointerAngle <= it.mEndAngle) {
-        if (i != mCurrentItem) {
-          setCurrentItem(i, false);
-        }
-        break;
-      }
+    int item = itemAtAngle(mCurrentItemAngle);
+    if (item >= 0 && item != mCurrentItem) {
+      setCurrentItem(item, false);
     }
   }
 
@@ -800,41 +2436,291 @@ public class PieChart extends ViewGroup {
    * Do all of the recalculations needed when the data array changes.
    */
   private void onDataChanged() {
-    // When the data changes, we have to recalculate
-    // all of the angles.
-    int currentAngle = 0;
-    for (Item it : mData) {
-      it.mStartAngle = currentAngle;
-      it.mEndAngle = (int) ((float) currentAngle + it.mValue * 360.0f / mTotal);
-      currentAngle = it.mEndAngle;
-
-
-      // Recalculate the gradient shaders. There are
-      // three values in this gradient, even though only
-      // two are necessary, in order to work around
-      // a bug in certain versions of the graphics engine
-      // that expects at least three values if the
-      // positions array is non-null.
-      //
-      it.mShader = new SweepGradient(
-          mPieBounds.width() / 2.0f,
-          mPieBounds.height() / 2.0f,
-          new int[]{
-              it.mHighlight,
-              it.mHighlight,
-              it.mColor,
-              it.mColor,
-          },
-          new float[]{
-              0,
-              (float) (360 - it.mEndAngle) / 360.0f,
-              (float) (360 - it.mStartAngle) / 360.0f,
-              1.0f
-          }
-      );
+    onDataChanged(true);
+  }
+
+  /**
+   * Do all of the recalculations needed when the data array or the size of the pie
+   * changes.
+   *
+   * A data change only refits the labels from the first changed item on. The shaders of
+   * the earlier slices are kept too, but only while the total stays the same: a new total
+   * scales every sweep, so every slice needs a new gradient. The later slices keep their
+   * shaders if only their start moved, and the cache gives a slice that moved to another
+   * index its shader back. The composite shader and a data transition always cover all of
+   * the slices, so with those a change costs O(n) however few items it touched.
+   *
+   * @param animate True if the data changed and the change may be animated.
+   */
+  private void onDataChanged(boolean animate) {
+    long start = metricsStart();
+    // Other changes, like a new size or render mode, reach every slice.
+    int first = animate && !mSlicesDirty ? mFirstChangedItem : 0;
+    mFirstChangedItem = Integer.MAX_VALUE;
+    mDataDirty = false;
+    mSlicesDirty = false;
+    aggregateSlices();
+    if (mSlices != mStore) {
+      // Folding items shifts the slices, so they can't be matched to items by index.
+      first = 0;
+    }
+    updateLabels(first);
+
+    // The store keeps the slice angles up to date as items change, so only the
+    // drawing objects that depend on them have to be recalculated here.
+    int count = mSlices.size();
+    if (mShaders.length < mSlices.capacity()) {
+      mShaders = Arrays.copyOf(mShaders, mSlices.capacity());
+      mShaderKeys = Arrays.copyOf(mShaderKeys, mSlices.capacity());
+      mShaderAngles = Arrays.copyOf(mShaderAngles, mSlices.capacity());
+    }
+    // Recalculate the gradient shaders. A slice whose colors and sweep did not change
+    // keeps its shader, turned to where the slice starts now; otherwise the cache is
+    // checked before a new shader is created. Flat slices don't need them.
+    float diameter = mPieBounds.width();
+    if (!drawsGradients()) {
+      count = 0;
+    }
+    if (Float.compare(mSlices.total(), mShaderTotal) != 0) {
+      first = 0;
+      mShaderTotal = mSlices.total();
+    }
+    if (count > mShaderCache.maxSize()) {
+      // Too small a cache would evict shaders that are still on screen before they come
+      // round again. The current shaders stay in mShaders while the new cache fills.
+      mShaderCache = new LruCache<ShaderKey, Shader>(count + SHADER_CACHE_SIZE);
+    }
+    // Give the shaders that no longer fit their slice back to the cache first, so that
+    // slices which moved to another index find them there.
+    for (int i = count; i < mShaders.length && mShaders[i] != null; ++i) {
+      releaseShader(i);
+    }
+    for (int i = Math.min(first, count); i < count; ++i) {
+      if (mShaders[i] != null && !mShaderKeys[i].matches(mSlices.color(i),
+          mSlices.highlight(i), mSlices.sweepAngle(i), diameter)) {
+        releaseShader(i);
+      }
+    }
+    for (int i = Math.min(first, count); i < count; ++i) {
+      if (mShaders[i] != null) {
+        mShaderHitCount++;
+      } else {
+        ShaderKey key = mShaderKeys[i];
+        if (key == null) {
+          key = mShaderKeys[i] = new ShaderKey();
+        }
+        key.set(mSlices.color(i), mSlices.highlight(i), mSlices.sweepAngle(i), diameter);
+        Shader shader = mShaderCache.remove(key);
+        if (shader == null) {
+          mShaderMissCount++;
+          shader = createSliceShader(i);
+        } else {
+          mShaderHitCount++;
+        }
+        mShaders[i] = shader;
+        mShaderAngles[i] = Float.NaN;
+      }
+      turnShader(i);
     }
+    mCompositeShader = mRenderMode == RENDER_MODE_COMPOSITE && count > 0
+        ? updateCompositeShader(first)
+        : null;
+    updateTransition(animate);
+    mPieView.invalidateContent();
     calcCurrentItem();
-    onScrollFinished();
+    // Settle the pie on the new slices if the slice under the pointer changed, unless the
+    // pie is still moving: then the gesture, the fling or the animation settles it when it
+    // ends.
+    if (updateCurrentSlice() && !mInteracting && !isAnimationRunning()) {
+      onScrollFinished();
+    }
+    if (animate && mMetrics != null) {
+      mMetrics.dataChanged();
+    }
+    recordMetric(PieChartMetrics.PHASE_DATA_CHANGE, start);
+  }
+
+  /**
+   * Fold the items that are too thin to see into the "Other" slice, if any thresholds are
+   * set.
+   */
+  private void aggregateSlices() {
+    // The outer rings of a sunburst are laid out against every node of the inner ring.
+    if (mSunburst != null) {
+      mSlices = mStore;
+      return;
+    }
+    // An arc of length l on a circle of radius r spans l / r radians.
+    float radius = mPieBounds.width() / 2;
+    float minSweep = mMinSliceAngle;
+    if (mMinSliceArcLength > 0 && radius > 0) {
+      minSweep = Math.max(minSweep, (float) Math.toDegrees(mMinSliceArcLength / radius));
+    }
+    if (minSweep <= 0) {
+      mSlices = mStore;
+      return;
+    }
+    mAggregator.aggregate(mStore, minSweep, mOtherLabel, mOtherColor,
+        highlightColor(mOtherColor, mHighlightStrength), mAggregatedStore);
+    mSlices = mAggregatedStore;
+  }
+
+  /**
+   * Bring the data transition in line with the data. Data changes start a new
+   * transition from whatever is on screen; other changes leave a running transition
+   * alone.
+   */
+  private void updateTransition(boolean animate) {
+    if (mTransitionDuration == 0 || mTransitionAnimator == null) {
+      return;
+    }
+    if (animate && mTransition.size() > 0) {
+      mTransitionAnimator.cancel();
+      mTransition.retarget(mSlices);
+      mTransitionAnimator.setDuration(mTransitionDuration);
+      mTransitionAnimator.start();
+    } else if (!mTransitionAnimator.isRunning()) {
+      mTransition.snapTo(mSlices);
+    }
+  }
+
+  private boolean isTransitionRunning() {
+    return mTransitionAnimator != null && mTransitionAnimator.isRunning();
+  }
+
+  /**
+   * Create the gradient shader of a slice. The gradient starts at the positive x axis and
+   * runs clockwise over the sweep of the slice; {@link #turnShader(int)} turns it to where
+   * the slice is.
+   */
+  private Shader createSliceShader(int i) {
+    // There are three values in this gradient, even though only
+    // two are necessary, in order to work around a bug in certain
+    // versions of the graphics engine that expects at least three
+    // values if the positions array is non-null.
+    return new SweepGradient(
+        mPieBounds.width() / 2.0f,
+        mPieBounds.height() / 2.0f,
+        new int[]{
+            mSlices.highlight(i),
+            mSlices.color(i),
+            mSlices.color(i),
+        },
+        new float[]{
+            0,
+            mSlices.sweepAngle(i) / 360.0f,
+            1.0f
+        }
+    );
+  }
+
+  /**
+   * Turn the shader of a slice so that its gradient starts at the end angle of the slice,
+   * where the slice is drawn from, unless it is turned there already.
+   */
+  private void turnShader(int i) {
+    float endAngle = mSlices.endAngle(i);
+    if (Float.compare(mShaderAngles[i], endAngle) == 0) {
+      return;
+    }
+    mShaderMatrix.setRotate(360 - endAngle,
+        mPieBounds.width() / 2.0f,
+        mPieBounds.height() / 2.0f);
+    mShaders[i].setLocalMatrix(mShaderMatrix);
+    mShaderAngles[i] = endAngle;
+  }
+
+  /**
+   * Take the shader away from a slice and keep it in the cache for other slices.
+   */
+  private void releaseShader(int i) {
+    // The per-slice key is reused, so the cache gets its own copy.
+    mShaderCache.put(new ShaderKey(mShaderKeys[i]), mShaders[i]);
+    mShaders[i] = null;
+  }
+
+  /**
+   * Update the single gradient that paints every slice. Going clockwise from the positive
+   * x axis, the slices come in reverse order, and each one contributes a stop with its
+   * highlight color at its end angle and a stop with its base color at its start angle.
+   * Neighbouring slices share a position, which gives hard edges between them.
+   *
+   * A gradient can't be changed once created, so any change creates a new one over every
+   * slice. The stops are kept though, and only the ones of the slices from {@code first}
+   * on are rewritten; if no slice changed, the current gradient is kept.
+   *
+   * @param first The first slice that changed.
+   */
+  private Shader updateCompositeShader(int first) {
+    int count = mSlices.size();
+    if (mCompositeColors.length != count * 2) {
+      mCompositeColors = new int[count * 2];
+      mCompositePositions = new float[count * 2];
+      first = 0;
+    } else if (mCompositeShader != null && first >= count) {
+      return mCompositeShader;
+    }
+    int[] colors = mCompositeColors;
+    float[] positions = mCompositePositions;
+    for (int i = count - 1, stop = 0; i >= first; --i, stop += 2) {
+      colors[stop] = mSlices.highlight(i);
+      positions[stop] = (360 - mSlices.endAngle(i)) / 360.0f;
+      colors[stop + 1] = mSlices.color(i);
+      positions[stop + 1] = (360 - mSlices.startAngle(i)) / 360.0f;
+    }
+    return new SweepGradient(
+        mPieBounds.width() / 2.0f,
+        mPieBounds.height() / 2.0f,
+        colors,
+        positions);
+  }
+
+  /**
+   * Remember the current item and the angles of its slice.
+   *
+   * @return True if they changed since the last call.
+   */
+  private boolean updateCurrentSlice() {
+    int item = mSlices.size() > 0 ? mCurrentItem : -1;
+    float start = item >= 0 ? mSlices.startAngle(item) : 0.0f;
+    float end = item >= 0 ? mSlices.endAngle(item) : 0.0f;
+    if (item == mCurrentSliceItem
+        && Float.compare(start, mCurrentSliceStart) == 0
+        && Float.compare(end, mCurrentSliceEnd) == 0) {
+      return false;
+    }
+    mCurrentSliceItem = item;
+    mCurrentSliceStart = start;
+    mCurrentSliceEnd = end;
+    return true;
+  }
+
+  /**
+   * Returns true if the pie has to be drawn slice by slice, either because that was
+   * requested or because a slice needs to be drawn on its own.
+   */
+  private boolean drawsArcs() {
+    return mRenderMode == RENDER_MODE_ARCS || mCompositeShader == null;
+  }
+
+  /**
+   * Returns the number of slice shaders that were reused, either because the slice did
+   * not change or from the shader cache.
+   *
+   * @return The shader cache hit count.
+   */
+  public int getShaderCacheHitCount() {
+    return mShaderHitCount;
+  }
+
+  /**
+   * Returns the number of slice shaders that had to be created because they were not in
+   * the shader cache.
+   *
+   * @return The shader cache miss count.
+   */
+  public int getShaderCacheMissCount() {
+    return mShaderMissCount;
   }
 
   /**
@@ -912,16 +2798,25 @@ public class PieChart extends ViewGroup {
    */
   public void onDraw(Canvas canvas){
     super.onDraw(canvas);
+    beginAllocationSection();
+    long start = metricsStart();
 
     //Draw the shadow
-    canvas.drawOval(
-        mShadowBounds,
-        mShadowPaint
-    );
+    if (mShadowBitmap != null) {
+      canvas.drawBitmap(mShadowBitmap, mShadowBitmapX, mShadowBitmapY, mShadowBitmapPaint);
+    }
+
+    //Draw the label text. The labels are measured and ellipsized when the data changes,
+    //so a fling only draws strings that are known to fit.
+    if (drawsLabel() && mCurrentItem < mLabels.size()) {
+      CharSequence label = mLabels.text(mCurrentItem);
+      canvas.drawText(label, 0, label.length(), mTextX, mTextY, mTextPaint);
+    }
 
-    //Draw the label text
-    if (getShowText()) {
-      canvas.drawText(mData.get(mCurrentItem).mLabel, mTextX, mTextY, mTextPaint);
+    //Draw the labels of all slices. They are placed for one rotation, so they are hidden
+    //while the pie moves instead of trailing behind their slices.
+    if (drawsSliceLabels() && mSlices.size() > 0 && !isPieMoving()) {
+      drawSliceLabels(canvas);
     }
 
     ////Draw the pie slices
@@ -937,15 +2832,8 @@ public class PieChart extends ViewGroup {
     ////Draw the pointer
     //canvas.drawLine(mTextX, mPointerY, mPointerX, mPointerY, mTextPaint);
     //canvas.drawCircle(mPointerX, mPointerY, mPointerSize, mTextPaint);
-
-    //If the API level is less than 11, we can't rely on the view animation system to
-    //do the scrolling animation. Need to tick it here and call postInvalidate() until the scrolling is done.
-    if (Build.VERSION.SDK_INT < 11){
-      tickScrollAnimation();
-      if(!mScroller.isFinished()){
-        postInvalidate();
-      }
-    }
+    recordMetric(PieChartMetrics.PHASE_CHART_DRAW, start);
+    endAllocationSection();
   }
 
 
@@ -981,7 +2869,13 @@ public class PieChart extends ViewGroup {
    * Force a stop to all pie motion. Called when the user taps during a fling.
    */
   private void stopScrolling() {
-    mScroller.forceFinished(true);
+    if (mFling.isRunning()) {
+      mFling.stop();
+      cancelFlingFrame();
+      if (mMetrics != null) {
+        mMetrics.flingEnded();
+      }
+    }
     if (Build.VERSION.SDK_INT >= 11) {
       mAutoCenterAnimator.cancel();
     }
@@ -998,6 +2892,12 @@ public class PieChart extends ViewGroup {
     private Matrix mTranformation = new Matrix();
     private PointF mPivot = new PointF();
 
+    // Offscreen copy of the pie, used when the pie cache is enabled.
+    private Bitmap mCacheBitmap;
+    private Canvas mCacheCanvas = new Canvas();
+    private Paint mCachePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private boolean mCacheValid = false;
+
     /**
      * Construct a PieView
      *
@@ -1011,42 +2911,251 @@ public class PieChart extends ViewGroup {
      * Enable hardware acceleration (consumes memory)
      */
     public void accelerate(){
-      setLayerToHW(this);
+      mInteracting = true;
+      applyLayerPolicy();
     }
 
     /**
      * Disable hardware acceleration (releases memory)
      */
     public void decelerate(){
-      setLayerToSW(this);
+      mInteracting = false;
+      applyLayerPolicy();
+    }
+
+    /**
+     * Called when the slices have changed and have to be drawn again.
+     */
+    public void invalidateContent(){
+      mCacheValid = false;
+      invalidate();
+    }
+
+    /**
+     * Allocate or release the cache bitmap to match the current size and the pie cache
+     * setting.
+     */
+    public void updateCache(){
+      int w = getWidth();
+      int h = getHeight();
+      boolean wanted = mPieCacheEnabled && w > 0 && h > 0;
+      if (mCacheBitmap != null
+          && (!wanted || mCacheBitmap.getWidth() != w || mCacheBitmap.getHeight() != h)) {
+        mCacheCanvas.setBitmap(null);
+        mCacheBitmap.recycle();
+        mCacheBitmap = null;
+      }
+      if (wanted && mCacheBitmap == null) {
+        mCacheBitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+        mCacheCanvas.setBitmap(mCacheBitmap);
+      }
+      invalidateContent();
     }
 
 
     @Override
     public void onDraw(Canvas canvas){
       super.onDraw(canvas);
+      beginAllocationSection();
+      long start = metricsStart();
 
       if (Build.VERSION.SDK_INT < 11){
-        mTranformation.set(canvas.getMatrix());
+        canvas.getMatrix(mTranformation);
         mTranformation.preRotate(mRotation, mPivot.x, mPivot.y);
         canvas.setMatrix(mTranformation);
       }
 
-      for (Item it : mData){
-        mPiePaint.setShader(it.mShader);
-        canvas.drawArc(mBounds,
-            360 - it.mEndAngle,
-            it.mEndAngle - it.mStartAngle,
-            true, mPiePaint);
+      if (mCacheBitmap != null) {
+        if (!mCacheValid) {
+          mCacheCanvas.drawColor(0, PorterDuff.Mode.CLEAR);
+          drawPie(mCacheCanvas);
+          mCacheValid = true;
+        }
+        canvas.drawBitmap(mCacheBitmap, 0, 0, mCachePaint);
+      } else {
+        drawPie(canvas);
+      }
+      recordMetric(PieChartMetrics.PHASE_PIE_DRAW, start);
+      endAllocationSection();
+    }
+
+    /**
+     * Draw the pie slices, unrotated.
+     */
+    private void drawPie(Canvas canvas){
+      // A donut draws its slices as stroked arcs along the middle of the ring.
+      boolean wedges = mInnerRadius == 0;
+      RectF oval = mRingBounds;
+      if (isTransitionRunning()) {
+        SliceTransition transition = mTransition;
+        for (int i = 0, count = transition.size(); i < count; ++i){
+          mFlatPaint.setColor(transition.color(i));
+          canvas.drawArc(oval,
+              360 - transition.endAngle(i),
+              transition.sweepAngle(i),
+              wedges, mFlatPaint);
+        }
+      } else if (!drawsGradients()) {
+        // Slices narrower than a pixel at the rim can't be told apart; neighbouring ones
+        // are drawn together as one arc.
+        float minSweep = (float) Math.toDegrees(2.0 / mBounds.width());
+        SliceStore store = mSlices;
+        for (int i = 0, count = store.size(); i < count; ++i){
+          drawReducedArc(canvas, oval, store.startAngle(i), store.sweepAngle(i),
+              store.color(i), minSweep, wedges, mFlatPaint);
+        }
+        endThinRun(canvas, oval, wedges, mFlatPaint);
+      } else if (drawsArcs()) {
+        // Inside a batch the store may already hold items that have no shader yet; they
+        // are drawn flat until the batch ends.
+        SliceStore store = mSlices;
+        Shader[] shaders = mShaders;
+        for (int i = 0, count = store.size(); i < count; ++i){
+          Shader shader = i < shaders.length ? shaders[i] : null;
+          Paint paint = mPiePaint;
+          if (shader != null) {
+            mPiePaint.setShader(shader);
+          } else {
+            mFlatPaint.setColor(store.color(i));
+            paint = mFlatPaint;
+          }
+          canvas.drawArc(oval,
+              360 - store.endAngle(i),
+              store.sweepAngle(i),
+              wedges, paint);
+        }
+      } else {
+        mPiePaint.setShader(mCompositeShader);
+        canvas.drawOval(oval, mPiePaint);
+      }
+      if (mSunburst != null) {
+        drawOuterRings(canvas);
+      }
+    }
+
+    /**
+     * Draw the rings of a sunburst outside the innermost one, in flat colors.
+     */
+    private void drawOuterRings(Canvas canvas){
+      SunburstTree tree = mSunburst;
+      // Like the slices, nodes narrower than a pixel are drawn together at reduced detail.
+      float minSweep = drawsGradients() ? 0 : (float) Math.toDegrees(2.0 / mBounds.width());
+      for (int ring = 1; ring < tree.ringCount(); ++ring) {
+        RectF oval = mOuterRingBounds[ring];
+        for (int i = 0, count = tree.ringSize(ring); i < count; ++i){
+          int node = tree.ringNode(ring, i);
+          drawReducedArc(canvas, oval, tree.startAngle(node), tree.sweepAngle(node),
+              tree.color(node), minSweep, false, mRingPaint);
+        }
+        endThinRun(canvas, oval, false, mRingPaint);
+      }
+    }
+
+    /**
+     * Draw one slice of a ring in a flat color. A slice narrower than minSweep is added to
+     * a run of thin neighbours instead, and the run is drawn as one arc, in the color of
+     * its widest slice, once it is minSweep wide or the next slice is not thin. That way a
+     * stretch of thin slices still covers its part of the ring, with a fraction of the
+     * draw calls. Call {@link #endThinRun} after the last slice of the ring.
+     *
+     * @param startAngle The data angle the slice starts at, in degrees.
+     * @param sweep      The data angle the slice covers, in degrees.
+     */
+    private void drawReducedArc(Canvas canvas, RectF oval, float startAngle, float sweep,
+        int color, float minSweep, boolean wedges, Paint paint) {
+      if (sweep <= 0) {
+        return;
+      }
+      // The nodes of an outer ring can leave gaps between them; a run doesn't bridge one.
+      if (mThinRunWidest >= 0 && startAngle - mThinRunEnd > minSweep) {
+        endThinRun(canvas, oval, wedges, paint);
+      }
+      if (sweep >= minSweep) {
+        endThinRun(canvas, oval, wedges, paint);
+        paint.setColor(color);
+        canvas.drawArc(oval, 360 - (startAngle + sweep), sweep, wedges, paint);
+        return;
+      }
+      if (mThinRunWidest < 0) {
+        mThinRunStart = startAngle;
+        mThinRunWidest = 0;
+      }
+      mThinRunEnd = startAngle + sweep;
+      if (sweep > mThinRunWidest) {
+        mThinRunWidest = sweep;
+        mThinRunColor = color;
+      }
+      if (mThinRunEnd - mThinRunStart >= minSweep) {
+        endThinRun(canvas, oval, wedges, paint);
+      }
+    }
+
+    /**
+     * Draw the run of thin slices collected by {@link #drawReducedArc}, if there is one.
+     */
+    private void endThinRun(Canvas canvas, RectF oval, boolean wedges, Paint paint) {
+      if (mThinRunWidest < 0) {
+        return;
       }
+      paint.setColor(mThinRunColor);
+      canvas.drawArc(oval, 360 - mThinRunEnd, mThinRunEnd - mThinRunStart, wedges, paint);
+      mThinRunWidest = -1;
     }
 
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh){
-      mBounds = new RectF(0,0,w,h);
+      mBounds.set(0,0,w,h);
+      updateRing();
+      updateCache();
     }
 
-    RectF mBounds;
+    RectF mBounds = new RectF();
+    // The run of thin slices drawReducedArc() is collecting, in data angles. No run is
+    // open while mThinRunWidest is negative.
+    private float mThinRunStart;
+    private float mThinRunEnd;
+    private float mThinRunWidest = -1;
+    private int mThinRunColor;
+    // The oval the slices are drawn on: the circle of the innermost ring for wedges, the
+    // circle along the middle of the ring for a donut.
+    RectF mRingBounds = new RectF();
+    // The circles along the middle of the outer rings of a sunburst, indexed by ring.
+    RectF[] mOuterRingBounds = new RectF[0];
+
+    /**
+     * Set up the ovals and paints for the inner radius and the rings. A stroke is centered
+     * on its path, so a ring is drawn as arcs on the circle halfway between its inner and
+     * outer radius, with a stroke as wide as the ring.
+     */
+    public void updateRing(){
+      float radius = mBounds.width() / 2;
+      float innerRadius = radius * mInnerRadius;
+      int rings = getRingCount();
+      float thickness = (radius - innerRadius) / rings;
+      boolean wedges = mInnerRadius == 0;
+      float ovalRadius = wedges ? thickness : innerRadius + thickness / 2;
+      mRingBounds.set(mBounds);
+      mRingBounds.inset(radius - ovalRadius, radius - ovalRadius);
+      Paint.Style style = wedges ? Paint.Style.FILL : Paint.Style.STROKE;
+      mPiePaint.setStyle(style);
+      mPiePaint.setStrokeWidth(thickness);
+      mFlatPaint.setStyle(style);
+      mFlatPaint.setStrokeWidth(thickness);
+
+      if (mOuterRingBounds.length < rings) {
+        mOuterRingBounds = new RectF[rings];
+        for (int ring = 0; ring < rings; ++ring) {
+          mOuterRingBounds[ring] = new RectF();
+        }
+      }
+      for (int ring = 1; ring < rings; ++ring) {
+        float inset = radius - (innerRadius + thickness * (ring + 0.5f));
+        mOuterRingBounds[ring].set(mBounds);
+        mOuterRingBounds[ring].inset(inset, inset);
+      }
+      mRingPaint.setStrokeWidth(thickness);
+      invalidateContent();
+    }
 
     public void rotateTo(float pieRotation){
       mRotation = pieRotation;
@@ -1084,28 +3193,61 @@ public class PieChart extends ViewGroup {
 
     @Override
     protected void onDraw(Canvas canvas){
+      if (!drawsLabel()) {
+        return;
+      }
       canvas.drawLine(mTextX, mPointerY, mPointerX, mPointerY, mTextPaint);
       canvas.drawCircle(mPointerX, mPointerY, mPointerRadius, mTextPaint);
     }
   }
 
+
   /**
-   * Maintains the state for a data item
+   * Identifies a slice shader: two slices with equal keys can use the same shader, each
+   * turned to where it starts.
    */
-  private class Item{
-    public String mLabel;
-    public float mValue;
-    public int mColor;
+  private static final class ShaderKey {
+    int mColor;
+    int mHighlight;
+    float mSweepAngle;
+    float mDiameter;
 
-    //computed values
-    public int mStartAngle;
-    public int mEndAngle;
+    ShaderKey() {
+    }
 
-    public int mHighlight;
-    public Shader mShader;
+    ShaderKey(ShaderKey other) {
+      set(other.mColor, other.mHighlight, other.mSweepAngle, other.mDiameter);
+    }
 
-  }
+    boolean matches(int color, int highlight, float sweepAngle, float diameter) {
+      return mColor == color
+          && mHighlight == highlight
+          && Float.compare(mSweepAngle, sweepAngle) == 0
+          && Float.compare(mDiameter, diameter) == 0;
+    }
+
+    void set(int color, int highlight, float sweepAngle, float diameter) {
+      mColor = color;
+      mHighlight = highlight;
+      mSweepAngle = sweepAngle;
+      mDiameter = diameter;
+    }
+
+    @Override public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof ShaderKey)) return false;
+      ShaderKey other = (ShaderKey) o;
+      return matches(other.mColor, other.mHighlight, other.mSweepAngle, other.mDiameter);
+    }
 
+    @Override public int hashCode() {
+      int result = mColor;
+      result = 31 * result + mHighlight;
+      result = 31 * result + Float.floatToIntBits(mSweepAngle);
+      result = 31 * result + Float.floatToIntBits(mDiameter);
+      return result;
+    }
+  }
 
   /**
    * Construct {@link GestureDetector} by passing an instance of a class that implements
@@ -1132,20 +3274,43 @@ public class PieChart extends ViewGroup {
     @Override
     public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY){
       //set the pie rotation directly
-      float scrollTheta = vectorToScalarScroll(
+      float scrollTheta = PieGeometry.vectorToScalarScroll(
           distanceX,
           distanceY,
           e2.getX() - mPieBounds.centerX(),
           e2.getY() - mPieBounds.centerY()
       );
-      setPieRotation(getPieRotation() - (int)scrollTheta/FLING_VELOCITY_DOWNSCALE);
+      setPieRotation(getPieRotation() - scrollTheta / FLING_VELOCITY_DOWNSCALE);
       return true;
     }
 
+    @Override
+    public boolean onSingleTapUp(MotionEvent e){
+      if (mSliceClickListener != null) {
+        int slice = sliceAt(e.getX(), e.getY());
+        if (slice >= 0) {
+          mSliceClickListener.onSliceClick(PieChart.this, slice);
+        }
+      }
+      // Not consuming the tap lets onTouchEvent() end the touch like any other.
+      return false;
+    }
+
+    @Override
+    public void onLongPress(MotionEvent e){
+      if (mSliceLongClickListener != null) {
+        int slice = sliceAt(e.getX(), e.getY());
+        if (slice >= 0) {
+          mSliceLongClickListener.onSliceLongClick(PieChart.this, slice);
+        }
+      }
+    }
+
     @Override
     public boolean onDown(MotionEvent e){
       //The user is interacting with the pie , so we want to turn on acceleration
       //so that the interaction is smooth
+      mGestureLayerTransitionCount = 0;
       mPieView.accelerate();
       if (isAnimationRunning()){
         stopScrolling();
@@ -1166,7 +3331,7 @@ public class PieChart extends ViewGroup {
      * Simulating the feel of a flywheel isn't trivial. A lot of physics and math are required to get a flywheel
      * model working correctly.
      * Fortunately Android provides helper classes to simulate this and other behaviors.
-     * The {@link Scroller} is the basis for handling flywheel-style fling gesture.
+     * The {@link android.widget.Scroller} is the basis for handling flywheel-style fling gesture.
      *
      * call fling() with the starting velocity and the minimum and maximum x and y values for the fling.
      * For velocity you can use the value computed by the {@link GestureDetector}
@@ -1176,16 +3341,16 @@ public class PieChart extends ViewGroup {
      * common to divide the x and y velocity by a factor of 4 to 8.
      *
      * The fling() sets up the physics model for the fling gesture. Afterwards you need to
-     * update the {@link Scroller} by calling {@link Scroller}.computeScrollOffset() at regular intervals.
+     * update the {@link android.widget.Scroller} by calling {@link android.widget.Scroller}.computeScrollOffset() at regular intervals.
      * computScrollOffset() updates objects's internal state by reading the current time and using the physics
      * model to calculate the x and y position at that time.
      * Call getCurrX() and getCurrY() to retrieve these values.
      *
-     * Most views pass the {@link Scroller} object's x and y position directly to scrollTo().
+     * Most views pass the {@link android.widget.Scroller} object's x and y position directly to scrollTo().
      * PieChat is a little different in that it uses the current scroll y position to set
      * the rotation angle of the chart.
      *
-     * {@link Scroller} computes the scroll positions for you but it does not automatically apply those
+     * {@link android.widget.Scroller} computes the scroll positions for you but it does not automatically apply those
      * positions to your view.
      * It's your responsibility to make sure you get and apply new coordinates often enough to make the
      * scrolling animation look smooth.
@@ -1205,61 +3370,28 @@ public class PieChart extends ViewGroup {
      * to make sure to check the current API level at runtime, and omit the calls to the view
      * animation system if the current level is less than 11.
      * {@link PieChart} .init()
+     *
+     * PieChart has since replaced the Scroller and ValueAnimator pair with its own
+     * {@link FlingEngine}, which runs once per frame from a {@link Choreographer} callback,
+     * keeps the rotation in float and can aim the fling at the middle of a slice.
      */
     @Override
     public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX, float velocityY){
-      //Set up the Scroller for a fling
-      float scrollTheta = vectorToScalarScroll(
+      //Set up the fling
+      float scrollTheta = PieGeometry.vectorToScalarScroll(
           velocityX,
           velocityY,
           e2.getX() - mPieBounds.centerX(),
           e2.getY() - mPieBounds.centerY()
       );
 
-      mScroller.fling(0,
-          (int) getPieRotation(),
-          0,
-          (int) scrollTheta/FLING_VELOCITY_DOWNSCALE,
-          0,
-          0,
-          Integer.MIN_VALUE,
-          Integer.MAX_VALUE);
-
-      //start the animator and tell it to animate for the expected duration of the fling
-      if (Build.VERSION.SDK_INT >= 11){
-        mScrollAnimator.setDuration(mScroller.getDuration());
-        mScrollAnimator.start();
-      }
+      startFling(scrollTheta / FLING_VELOCITY_DOWNSCALE);
       return true;
     }
 
   }
 
   private boolean isAnimationRunning() {
-    return !mScroller.isFinished() || (Build.VERSION.SDK_INT > 11 && mAutoCenterAnimator.isRunning());
-  }
-
-  /**
-   * Helper method for translating (x,y) scroll vectors into scalar rotation of the pie.
-   *
-   * @Param dx The x component of the current scroll vector
-   * @Param dy The y component of the current scroll vector
-   * @Param x  The x position of the current touch, relative to the pie center.
-   * @Param y  The y position of the current touch, relative to the pie center.
-   * @return The scalar representing the change in angular position for this scroll.
-   */
-  private static float vectorToScalarScroll(float dx, float dy, float x , float y){
-     //get the length of the vector
-    float l = (float)Math.sqrt(dx * dx + dy *dy);
-
-    //decide if the scalar should be negative or positive by finding
-    //the dot product of the vector perpendicular to (x,y).
-    float crossX = -y;
-    float crossY = x;
-
-    float dot = (crossX * dx + crossY * dy);
-    float sign = Math.signum(dot);
-
-    return l * sign;
+    return mFling.isRunning() || (Build.VERSION.SDK_INT > 11 && mAutoCenterAnimator.isRunning());
   }
 }
@@ -0,0 +1,323 @@
+package com.arachi.nkoroi.customviewandroiddocumentation;
+
+import java.util.Arrays;
+
+/**
+ * Timing and jank counters of a {@link PieChart}, for production telemetry.
+ *
+ * The chart times each of its hot phases (see the PHASE_ constants) and records the
+ * duration in a histogram per phase. It also counts data changes, and counts the frames
+ * of each fling together with the frames that were dropped between them.
+ *
+ * Histograms use a fixed set of logarithmic buckets, like HdrHistogram: each power of two
+ * is split into eight buckets, so a recorded value is known to within 12.5% and the
+ * memory use never grows. Recording doesn't allocate. Telemetry reads the counters by
+ * copying them into a {@link Snapshot} it keeps around, which doesn't allocate either and
+ * may be done from any thread.
+ *
+ * Metrics are off by default; turn them on with {@link PieChart#setMetricsEnabled(boolean)}.
+ */
+public final class PieChartMetrics {
+
+  /**
+   * PieChart.onDraw: the shadow, the label and the pointer.
+   */
+  public static final int PHASE_CHART_DRAW = 0;
+
+  /**
+   * PieView.onDraw: the pie slices, or the cached bitmap of them.
+   */
+  public static final int PHASE_PIE_DRAW = 1;
+
+  /**
+   * Recalculating the slices and their shaders after the data or the size changed.
+   */
+  public static final int PHASE_DATA_CHANGE = 2;
+
+  /**
+   * Moving the pie one frame further during a fling or a scroll animation.
+   */
+  public static final int PHASE_SCROLL_TICK = 3;
+
+  /**
+   * The number of phases.
+   */
+  public static final int PHASE_COUNT = 4;
+
+  private final Histogram[] mHistograms = new Histogram[PHASE_COUNT];
+  private final long mFrameIntervalNanos;
+
+  private long mDataChangeCount = 0;
+  private long mFlingCount = 0;
+  private long mFlingFrameCount = 0;
+  private long mDroppedFrameCount = 0;
+  // The time of the last fling frame, or -1 when no fling is running.
+  private long mLastFlingFrameNanos = -1;
+
+  /**
+   * @param frameIntervalNanos The time between two frames of the display, used to tell
+   *                           how many frames a fling dropped.
+   */
+  PieChartMetrics(long frameIntervalNanos) {
+    mFrameIntervalNanos = frameIntervalNanos;
+    for (int i = 0; i < PHASE_COUNT; ++i) {
+      mHistograms[i] = new Histogram();
+    }
+  }
+
+  /**
+   * Record how long a phase took.
+   */
+  synchronized void record(int phase, long nanos) {
+    mHistograms[phase].record(nanos);
+  }
+
+  /**
+   * Count a data change.
+   */
+  synchronized void dataChanged() {
+    mDataChangeCount++;
+  }
+
+  /**
+   * Mark the start of a fling.
+   */
+  synchronized void flingStarted() {
+    mFlingCount++;
+    mLastFlingFrameNanos = -1;
+  }
+
+  /**
+   * Count a frame of the running fling. Any time between this frame and the previous one
+   * beyond one frame interval is counted as dropped frames.
+   *
+   * @param frameNanos The time of the frame, in nanoseconds.
+   */
+  synchronized void flingFrame(long frameNanos) {
+    mFlingFrameCount++;
+    if (mLastFlingFrameNanos >= 0) {
+      // Round to the nearest whole frame so that jitter isn't counted as a drop.
+      long frames = (frameNanos - mLastFlingFrameNanos + mFrameIntervalNanos / 2)
+          / mFrameIntervalNanos;
+      if (frames > 1) {
+        mDroppedFrameCount += frames - 1;
+      }
+    }
+    mLastFlingFrameNanos = frameNanos;
+  }
+
+  /**
+   * Mark the end of a fling.
+   */
+  synchronized void flingEnded() {
+    mLastFlingFrameNanos = -1;
+  }
+
+  /**
+   * Copy all of the counters into the given snapshot. Doesn't allocate.
+   *
+   * @param snapshot The snapshot to overwrite.
+   */
+  public synchronized void snapshot(Snapshot snapshot) {
+    for (int i = 0; i < PHASE_COUNT; ++i) {
+      mHistograms[i].copyTo(snapshot.mHistograms[i]);
+    }
+    snapshot.mDataChangeCount = mDataChangeCount;
+    snapshot.mFlingCount = mFlingCount;
+    snapshot.mFlingFrameCount = mFlingFrameCount;
+    snapshot.mDroppedFrameCount = mDroppedFrameCount;
+  }
+
+  /**
+   * Forget all of the counts collected so far.
+   */
+  public synchronized void reset() {
+    for (int i = 0; i < PHASE_COUNT; ++i) {
+      mHistograms[i].reset();
+    }
+    mDataChangeCount = 0;
+    mFlingCount = 0;
+    mFlingFrameCount = 0;
+    mDroppedFrameCount = 0;
+  }
+
+  /**
+   * A copy of the counters of a chart at one point in time. Create one and reuse it for
+   * every poll.
+   */
+  public static final class Snapshot {
+    private final Histogram[] mHistograms = new Histogram[PHASE_COUNT];
+    private long mDataChangeCount;
+    private long mFlingCount;
+    private long mFlingFrameCount;
+    private long mDroppedFrameCount;
+
+    public Snapshot() {
+      for (int i = 0; i < PHASE_COUNT; ++i) {
+        mHistograms[i] = new Histogram();
+      }
+    }
+
+    /**
+     * Returns the durations recorded for a phase, in nanoseconds.
+     *
+     * @param phase One of the PHASE_ constants of {@link PieChartMetrics}.
+     */
+    public Histogram getHistogram(int phase) {
+      return mHistograms[phase];
+    }
+
+    public long getDataChangeCount() {
+      return mDataChangeCount;
+    }
+
+    public long getFlingCount() {
+      return mFlingCount;
+    }
+
+    public long getFlingFrameCount() {
+      return mFlingFrameCount;
+    }
+
+    public long getDroppedFrameCount() {
+      return mDroppedFrameCount;
+    }
+  }
+
+  /**
+   * A histogram of non-negative values in fixed memory. Values below 8 get a bucket of
+   * their own; above that, each power of two is split into 8 buckets of equal width.
+   */
+  public static final class Histogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Enough buckets for every positive long.
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long[] mCounts = new long[BUCKETS];
+    private long mCount = 0;
+    private long mSum = 0;
+    private long mMin = Long.MAX_VALUE;
+    private long mMax = 0;
+
+    /**
+     * Add a value. Negative values are recorded as 0.
+     */
+    public void record(long value) {
+      value = Math.max(value, 0);
+      mCounts[bucketOf(value)]++;
+      mCount++;
+      mSum += value;
+      mMin = Math.min(mMin, value);
+      mMax = Math.max(mMax, value);
+    }
+
+    public long getCount() {
+      return mCount;
+    }
+
+    /**
+     * Returns the smallest value recorded, or 0 if the histogram is empty.
+     */
+    public long getMin() {
+      return mCount == 0 ? 0 : mMin;
+    }
+
+    /**
+     * Returns the largest value recorded, or 0 if the histogram is empty.
+     */
+    public long getMax() {
+      return mMax;
+    }
+
+    /**
+     * Returns the mean of the values recorded, or 0 if the histogram is empty.
+     */
+    public double getMean() {
+      return mCount == 0 ? 0 : (double) mSum / mCount;
+    }
+
+    /**
+     * Returns a value that the given percentage of the recorded values don't exceed. The
+     * result is the upper end of a bucket, so it overstates the true percentile by at
+     * most 12.5%, and is never more than the largest value recorded.
+     *
+     * @param percentile Between 0 and 100.
+     * @return The value at the percentile, or 0 if the histogram is empty.
+     */
+    public long getValueAtPercentile(double percentile) {
+      if (mCount == 0) {
+        return 0;
+      }
+      long rank = (long) Math.ceil(percentile / 100.0 * mCount);
+      rank = Math.max(1, Math.min(rank, mCount));
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; ++i) {
+        seen += mCounts[i];
+        if (seen >= rank) {
+          return Math.min(upperBoundOf(i), mMax);
+        }
+      }
+      return mMax;
+    }
+
+    /**
+     * Returns the number of values recorded in a bucket.
+     *
+     * @param bucket Between 0 and {@link #getBucketCount()}.
+     */
+    public long getCountInBucket(int bucket) {
+      return mCounts[bucket];
+    }
+
+    public int getBucketCount() {
+      return BUCKETS;
+    }
+
+    /**
+     * Returns the smallest value that falls into a bucket.
+     */
+    public static long lowerBoundOf(int bucket) {
+      if (bucket < SUB_BUCKETS) {
+        return bucket;
+      }
+      int shift = bucket / SUB_BUCKETS - 1;
+      return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    /**
+     * Returns the largest value that falls into a bucket.
+     */
+    public static long upperBoundOf(int bucket) {
+      return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowerBoundOf(bucket + 1) - 1;
+    }
+
+    /**
+     * Returns the bucket a value falls into.
+     */
+    static int bucketOf(long value) {
+      if (value < SUB_BUCKETS) {
+        return (int) value;
+      }
+      int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+      int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+      return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    void copyTo(Histogram other) {
+      System.arraycopy(mCounts, 0, other.mCounts, 0, BUCKETS);
+      other.mCount = mCount;
+      other.mSum = mSum;
+      other.mMin = mMin;
+      other.mMax = mMax;
+    }
+
+    void reset() {
+      Arrays.fill(mCounts, 0);
+      mCount = 0;
+      mSum = 0;
+      mMin = Long.MAX_VALUE;
+      mMax = 0;
+    }
+  }
+}
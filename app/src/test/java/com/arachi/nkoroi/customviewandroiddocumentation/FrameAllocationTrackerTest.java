@@ -0,0 +1,94 @@
+package com.arachi.nkoroi.customviewandroiddocumentation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link FrameAllocationTracker}, driven by a fake allocation counter
+ * and frame clock.
+ */
+public class FrameAllocationTrackerTest {
+  private long mAllocations;
+  private long mFrameTime;
+  private FrameAllocationTracker mTracker;
+
+  @Before public void setUp() throws Exception {
+    mAllocations = 0;
+    mFrameTime = 0;
+    mTracker = new FrameAllocationTracker(new FrameAllocationTracker.Counter() {
+      @Override public long allocationCount() {
+        return mAllocations;
+      }
+    }, new FrameAllocationTracker.FrameClock() {
+      @Override public long frameTime() {
+        return mFrameTime;
+      }
+    });
+  }
+
+  @Test public void sectionsInOneFrame_areSummed() throws Exception {
+    section(2);
+    section(3);
+    mTracker.endFrame();
+
+    assertEquals(1, mTracker.getFrameCount());
+    assertEquals(5, mTracker.getLastFrameAllocations());
+  }
+
+  @Test public void newFrameTime_startsNewFrame() throws Exception {
+    section(2);
+    mFrameTime = 16;
+    section(0);
+    mFrameTime = 32;
+    section(4);
+    mTracker.endFrame();
+
+    assertEquals(3, mTracker.getFrameCount());
+    assertEquals(2, mTracker.getAllocatingFrameCount());
+    assertEquals(4, mTracker.getMaxFrameAllocations());
+    assertEquals(6, mTracker.getTotalAllocations());
+  }
+
+  @Test public void nestedSections_areCountedOnce() throws Exception {
+    mTracker.beginSection();
+    mAllocations += 1;
+    mTracker.beginSection();
+    mAllocations += 2;
+    mTracker.endSection();
+    mTracker.endSection();
+    mTracker.endFrame();
+
+    assertEquals(3, mTracker.getLastFrameAllocations());
+  }
+
+  @Test public void allocationsOutsideSections_areIgnored() throws Exception {
+    section(0);
+    mAllocations += 10;
+    section(0);
+
+    mTracker.assertNoAllocations();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void assertNoAllocations_failsWhenFrameAllocated() throws Exception {
+    section(1);
+    mTracker.assertNoAllocations();
+  }
+
+  @Test public void reset_clearsCounts() throws Exception {
+    section(1);
+    mTracker.endFrame();
+    mTracker.reset();
+
+    assertEquals(0, mTracker.getFrameCount());
+    mTracker.assertNoAllocations();
+  }
+
+  private void section(int allocations) {
+    mTracker.beginSection();
+    mAllocations += allocations;
+    mTracker.endSection();
+  }
+}
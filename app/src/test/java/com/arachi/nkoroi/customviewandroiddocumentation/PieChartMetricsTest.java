@@ -0,0 +1,80 @@
+package com.arachi.nkoroi.customviewandroiddocumentation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link PieChartMetrics}.
+ */
+public class PieChartMetricsTest {
+  private static final long FRAME = 16000000L;
+
+  @Test public void histogram_bucketsCoverValuesInOrder() throws Exception {
+    PieChartMetrics.Histogram histogram = new PieChartMetrics.Histogram();
+    for (int bucket = 0; bucket < histogram.getBucketCount() - 1; ++bucket) {
+      long low = PieChartMetrics.Histogram.lowerBoundOf(bucket);
+      long high = PieChartMetrics.Histogram.upperBoundOf(bucket);
+      assertEquals(bucket, PieChartMetrics.Histogram.bucketOf(low));
+      assertEquals(bucket, PieChartMetrics.Histogram.bucketOf(high));
+      assertEquals(high + 1, PieChartMetrics.Histogram.lowerBoundOf(bucket + 1));
+    }
+    assertEquals(histogram.getBucketCount() - 1,
+        PieChartMetrics.Histogram.bucketOf(Long.MAX_VALUE));
+  }
+
+  @Test public void histogram_percentilesStayWithinBucketError() throws Exception {
+    PieChartMetrics.Histogram histogram = new PieChartMetrics.Histogram();
+    for (long value = 1; value <= 1000; ++value) {
+      histogram.record(value * 1000);
+    }
+    assertEquals(1000, histogram.getCount());
+    assertEquals(1000, histogram.getMin());
+    assertEquals(1000000, histogram.getMax());
+    assertEquals(500500.0, histogram.getMean(), 1e-6);
+
+    long median = histogram.getValueAtPercentile(50);
+    assertTrue(median >= 500000 && median <= 500000 * 1.125);
+    long p99 = histogram.getValueAtPercentile(99);
+    assertTrue(p99 >= 990000 && p99 <= 1000000);
+    assertEquals(1000000, histogram.getValueAtPercentile(100));
+  }
+
+  @Test public void flingFrames_countDroppedFrames() throws Exception {
+    PieChartMetrics metrics = new PieChartMetrics(FRAME);
+    metrics.flingStarted();
+    metrics.flingFrame(0);
+    metrics.flingFrame(FRAME + 1000);
+    // Two frames missed.
+    metrics.flingFrame(4 * FRAME);
+    metrics.flingEnded();
+    // The gap to the next fling isn't dropped.
+    metrics.flingStarted();
+    metrics.flingFrame(100 * FRAME);
+    metrics.flingEnded();
+
+    PieChartMetrics.Snapshot snapshot = new PieChartMetrics.Snapshot();
+    metrics.snapshot(snapshot);
+    assertEquals(2, snapshot.getFlingCount());
+    assertEquals(4, snapshot.getFlingFrameCount());
+    assertEquals(2, snapshot.getDroppedFrameCount());
+  }
+
+  @Test public void snapshot_copiesAndReset_clears() throws Exception {
+    PieChartMetrics metrics = new PieChartMetrics(FRAME);
+    metrics.record(PieChartMetrics.PHASE_PIE_DRAW, 5000);
+    metrics.dataChanged();
+
+    PieChartMetrics.Snapshot snapshot = new PieChartMetrics.Snapshot();
+    metrics.snapshot(snapshot);
+    metrics.record(PieChartMetrics.PHASE_PIE_DRAW, 7000);
+    assertEquals(1, snapshot.getHistogram(PieChartMetrics.PHASE_PIE_DRAW).getCount());
+    assertEquals(0, snapshot.getHistogram(PieChartMetrics.PHASE_CHART_DRAW).getCount());
+    assertEquals(1, snapshot.getDataChangeCount());
+
+    metrics.reset();
+    metrics.snapshot(snapshot);
+    assertEquals(0, snapshot.getHistogram(PieChartMetrics.PHASE_PIE_DRAW).getCount());
+    assertEquals(0, snapshot.getDataChangeCount());
+  }
+}
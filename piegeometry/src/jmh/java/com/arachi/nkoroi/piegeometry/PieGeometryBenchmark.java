@@ -0,0 +1,128 @@
+package com.arachi.nkoroi.piegeometry;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the pie geometry at different slice counts:
+ * loading a data set, laying out the angles again, changing one value, finding the slice
+ * at an angle, turning a scroll gesture into a rotation and placing the slice labels.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieGeometryBenchmark {
+  // Number of precomputed inputs the per-call benchmarks cycle through. A power of two
+  // so the next index can be found with a mask.
+  private static final int INPUTS = 1024;
+
+  @Param({"10", "1000", "100000"})
+  public int sliceCount;
+
+  private String[] mLabels;
+  private float[] mValues;
+  private int[] mColors;
+  private SliceStore mStore;
+
+  private float[] mAngles;
+  private float[] mScrolls;
+  private float[] mMidAngles;
+  private LabelPlacer mPlacer;
+  private int mNext;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    mLabels = new String[sliceCount];
+    mValues = new float[sliceCount];
+    mColors = new int[sliceCount];
+    for (int i = 0; i < sliceCount; ++i) {
+      mLabels[i] = "Slice " + i;
+      mValues[i] = 1 + random.nextInt(100);
+      mColors[i] = 0xff000000 | random.nextInt(0xffffff);
+    }
+    mStore = new SliceStore(sliceCount);
+    load(mStore);
+
+    mAngles = new float[INPUTS];
+    mScrolls = new float[INPUTS * 4];
+    for (int i = 0; i < INPUTS; ++i) {
+      mAngles[i] = random.nextFloat() * 360;
+      for (int j = 0; j < 4; ++j) {
+        mScrolls[i * 4 + j] = random.nextFloat() * 200 - 100;
+      }
+    }
+
+    mMidAngles = new float[sliceCount];
+    for (int i = 0; i < sliceCount; ++i) {
+      mMidAngles[i] = mStore.startAngle(i) + mStore.sweepAngle(i) / 2;
+    }
+    mPlacer = new LabelPlacer();
+    mPlacer.setPie(540, 540, 300);
+    mPlacer.setLabelSize(40, 8, 24);
+    mPlacer.setBounds(0, 1080, 96);
+  }
+
+  @Benchmark
+  public SliceStore dataLoad() {
+    load(mStore);
+    return mStore;
+  }
+
+  @Benchmark
+  public SliceStore relayout() {
+    mStore.layout();
+    return mStore;
+  }
+
+  @Benchmark
+  public float pointUpdate() {
+    mNext = (mNext + 1) & (INPUTS - 1);
+    int index = mNext % sliceCount;
+    mStore.setValue(index, mValues[index] + (mNext & 1));
+    // Read an angle after the change, as a redraw or a hit test would.
+    return mStore.endAngle(sliceCount / 2);
+  }
+
+  @Benchmark
+  public int hitTest() {
+    mNext = (mNext + 1) & (INPUTS - 1);
+    return mStore.indexOfAngle(mAngles[mNext]);
+  }
+
+  @Benchmark
+  public float gestureToRotation() {
+    mNext = (mNext + 1) & (INPUTS - 1);
+    int i = mNext * 4;
+    return PieGeometry.normalizeAngle(PieGeometry.vectorToScalarScroll(
+        mScrolls[i], mScrolls[i + 1], mScrolls[i + 2], mScrolls[i + 3]));
+  }
+
+  @Benchmark
+  public int placeLabels() {
+    mPlacer.place(mMidAngles, sliceCount);
+    return mPlacer.visibleCount();
+  }
+
+  private void load(SliceStore store) {
+    store.clear();
+    for (int i = 0; i < sliceCount; ++i) {
+      store.add(mLabels[i], mValues[i], mColors[i], mColors[i]);
+    }
+    store.layout();
+  }
+}
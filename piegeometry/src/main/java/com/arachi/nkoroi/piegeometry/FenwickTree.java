@@ -0,0 +1,125 @@
+package com.arachi.nkoroi.piegeometry;
+
+import java.util.Arrays;
+
+/**
+ * A Fenwick (binary indexed) tree over a sequence of values: changing one value and
+ * summing the first n values both take O(log n).
+ *
+ * Node i (counting from 1) holds the sum of the values in (i - lowbit(i), i], where
+ * lowbit(i) is the lowest set bit of i. A prefix sum adds up the nodes of the binary
+ * decomposition of its length, and a point update adds to every node whose range covers
+ * the point.
+ */
+public final class FenwickTree {
+  private double[] mTree;
+  private int mSize = 0;
+
+  public FenwickTree() {
+    this(8);
+  }
+
+  public FenwickTree(int capacity) {
+    mTree = new double[Math.max(capacity, 1) + 1];
+  }
+
+  public int size() {
+    return mSize;
+  }
+
+  /**
+   * Remove all values. The backing array is kept.
+   */
+  public void clear() {
+    Arrays.fill(mTree, 0, mSize + 1, 0.0);
+    mSize = 0;
+  }
+
+  /**
+   * Make sure the tree can hold at least the given number of values without growing.
+   */
+  public void ensureCapacity(int capacity) {
+    if (capacity + 1 <= mTree.length) {
+      return;
+    }
+    mTree = Arrays.copyOf(mTree, Math.max(capacity + 1, mTree.length * 2));
+  }
+
+  /**
+   * Append a value, in O(log n).
+   */
+  public void push(double value) {
+    ensureCapacity(mSize + 1);
+    int node = ++mSize;
+    // The new node covers the value and the values (node - lowbit(node), node - 1],
+    // which are exactly the ranges of the nodes below it.
+    int low = node - (node & -node);
+    double sum = value;
+    for (int child = node - 1; child > low; child -= child & -child) {
+      sum += mTree[child];
+    }
+    mTree[node] = sum;
+  }
+
+  /**
+   * Add to one of the values, in O(log n).
+   *
+   * @param index The zero-based index of the value.
+   * @param delta The amount to add.
+   */
+  public void add(int index, double delta) {
+    for (int node = index + 1; node <= mSize; node += node & -node) {
+      mTree[node] += delta;
+    }
+  }
+
+  /**
+   * Returns the sum of the first count values, in O(log n).
+   */
+  public double prefixSum(int count) {
+    // Walk the bits from the top down, the same order as lastCountBelow() uses, so both
+    // round the same way.
+    double sum = 0.0;
+    int node = 0;
+    for (int step = Integer.highestOneBit(Math.max(count, 1)); step > 0; step >>>= 1) {
+      if ((count & step) != 0) {
+        node += step;
+        sum += mTree[node];
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Returns the largest count whose prefix sum is below the target, in O(log n). The
+   * values must not be negative.
+   */
+  public int lastCountBelow(double target) {
+    double sum = 0.0;
+    int node = 0;
+    for (int step = Integer.highestOneBit(Math.max(mSize, 1)); step > 0; step >>>= 1) {
+      int next = node + step;
+      if (next <= mSize && sum + mTree[next] < target) {
+        node = next;
+        sum += mTree[next];
+      }
+    }
+    return node;
+  }
+
+  /**
+   * Replace the contents with the given values, in O(n).
+   */
+  public void build(float[] values, int count) {
+    ensureCapacity(count);
+    Arrays.fill(mTree, 0, mSize + 1, 0.0);
+    mSize = count;
+    for (int node = 1; node <= count; ++node) {
+      mTree[node] += values[node - 1];
+      int parent = node + (node & -node);
+      if (parent <= count) {
+        mTree[parent] += mTree[node];
+      }
+    }
+  }
+}
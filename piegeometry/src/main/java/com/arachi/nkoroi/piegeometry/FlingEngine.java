@@ -0,0 +1,166 @@
+package com.arachi.nkoroi.piegeometry;
+
+/**
+ * Angular physics of a flung pie.
+ *
+ * The pie spins with a velocity that friction lets decay exponentially:
+ * after t seconds the velocity is v0 * e^(-k t) and the pie has turned
+ * v0 / k * (1 - e^(-k t)) degrees, where k is the friction. Each {@link #step(long)}
+ * evaluates these in closed form for the frame time it is given, so the motion doesn't
+ * depend on how regularly frames arrive, and a dropped frame just makes the next step
+ * longer.
+ *
+ * Because the motion is known in advance, so is the angle the pie comes to rest at. A
+ * fling can be aimed at a nearby angle instead, for example the middle of a slice, with
+ * {@link #setTarget(float)}: the velocity is adjusted so that the fling comes to rest
+ * exactly there.
+ */
+public final class FlingEngine {
+
+  /**
+   * The default friction, per second. The velocity falls to 5% in one second.
+   */
+  public static final float DEFAULT_FRICTION = 3.0f;
+
+  /**
+   * The default velocity, in degrees per second, below which the fling stops.
+   */
+  public static final float DEFAULT_STOP_VELOCITY = 1.0f;
+
+  private float mFriction = DEFAULT_FRICTION;
+  private float mStopVelocity = DEFAULT_STOP_VELOCITY;
+
+  private boolean mRunning = false;
+  private float mAngle;
+  private float mVelocity;
+  private long mFrameNanos;
+  private boolean mHasTarget;
+  private float mTarget;
+
+  /**
+   * Set how quickly flings slow down.
+   *
+   * @param friction The decay rate of the velocity, per second. Must be positive.
+   */
+  public void setFriction(float friction) {
+    if (!(friction > 0)) {
+      throw new IllegalArgumentException("friction must be positive");
+    }
+    mFriction = friction;
+  }
+
+  public float getFriction() {
+    return mFriction;
+  }
+
+  /**
+   * Set the velocity below which a fling stops.
+   *
+   * @param stopVelocity The velocity in degrees per second. Must be positive.
+   */
+  public void setStopVelocity(float stopVelocity) {
+    if (!(stopVelocity > 0)) {
+      throw new IllegalArgumentException("stopVelocity must be positive");
+    }
+    mStopVelocity = stopVelocity;
+  }
+
+  /**
+   * Start a fling. Replaces any fling that is still running.
+   *
+   * @param angle      The angle to start from, in degrees.
+   * @param velocity   The initial velocity, in degrees per second.
+   * @param startNanos The time the fling starts, in nanoseconds. Later frame times must
+   *                   use the same clock.
+   */
+  public void start(float angle, float velocity, long startNanos) {
+    mAngle = angle;
+    mVelocity = velocity;
+    mFrameNanos = startNanos;
+    mHasTarget = false;
+    mRunning = Math.abs(velocity) >= mStopVelocity;
+  }
+
+  /**
+   * Returns the angle the fling will come to rest at.
+   */
+  public float getRestingAngle() {
+    if (!mRunning) {
+      return mAngle;
+    }
+    return mHasTarget ? mTarget : mAngle + mVelocity / mFriction;
+  }
+
+  /**
+   * Make the running fling come to rest at the given angle. The velocity is changed to
+   * the one that reaches the target under the same friction, so the target should be
+   * close to {@link #getRestingAngle()} for the fling to still feel right.
+   *
+   * @param target The angle to come to rest at, in degrees.
+   */
+  public void setTarget(float target) {
+    if (!mRunning) {
+      return;
+    }
+    mTarget = target;
+    mHasTarget = true;
+    mVelocity = (target - mAngle) * mFriction;
+    if (Math.abs(mVelocity) < mStopVelocity) {
+      finish();
+    }
+  }
+
+  /**
+   * Move the fling to the given frame time.
+   *
+   * @param frameNanos The time of the frame, in nanoseconds.
+   * @return True if the fling is still running after this frame.
+   */
+  public boolean step(long frameNanos) {
+    if (!mRunning) {
+      return false;
+    }
+    float seconds = Math.max(frameNanos - mFrameNanos, 0) / 1e9f;
+    mFrameNanos = frameNanos;
+    float decay = (float) Math.exp(-mFriction * seconds);
+    mAngle += mVelocity / mFriction * (1 - decay);
+    mVelocity *= decay;
+    if (Math.abs(mVelocity) < mStopVelocity) {
+      finish();
+    }
+    return mRunning;
+  }
+
+  /**
+   * Stop the fling where it is.
+   */
+  public void stop() {
+    mRunning = false;
+    mVelocity = 0;
+  }
+
+  public boolean isRunning() {
+    return mRunning;
+  }
+
+  /**
+   * Returns the current angle, in degrees. Not normalized.
+   */
+  public float getAngle() {
+    return mAngle;
+  }
+
+  /**
+   * Returns the current velocity, in degrees per second.
+   */
+  public float getVelocity() {
+    return mVelocity;
+  }
+
+  private void finish() {
+    if (mHasTarget) {
+      mAngle = mTarget;
+    }
+    stop();
+  }
+}
@@ -0,0 +1,257 @@
+package com.arachi.nkoroi.piegeometry;
+
+import java.util.Arrays;
+
+/**
+ * Places a label beside every slice of a pie, in two columns to the left and the right of
+ * it, without letting labels overlap.
+ *
+ * Each label wants to sit level with the point where a leader line from the middle of its
+ * slice, running outward from the pie, ends. The labels of each side are sorted by that
+ * height and then placed in one sweep from the top: a label goes where it wants to be, or
+ * just below the label above it if that one is in the way. A label that would have to
+ * move further than the allowed shift, or that would run past the bottom, is hidden and
+ * leaves its room to the next one. That is O(n log n) for the sort and O(n) for the
+ * sweep, where checking every pair of labels for overlaps would be O(n^2).
+ *
+ * Angles are screen angles, measured like data angles but with the pie rotation already
+ * taken off. The buffers are reused, so placing the same number of labels again doesn't
+ * allocate.
+ */
+public final class LabelPlacer {
+  private static final int DEFAULT_CAPACITY = 8;
+
+  private float mCenterX;
+  private float mCenterY;
+  private float mRadius;
+  private float mLeaderLength;
+  private float mLabelHeight;
+  private float mSpacing;
+  private float mMaxShift;
+  private float mTop;
+  private float mBottom;
+
+  private int mSize = 0;
+  private int mVisibleCount = 0;
+  private float[] mAnchorX = new float[DEFAULT_CAPACITY];
+  private float[] mAnchorY = new float[DEFAULT_CAPACITY];
+  private float[] mElbowX = new float[DEFAULT_CAPACITY];
+  private float[] mLabelY = new float[DEFAULT_CAPACITY];
+  private boolean[] mLeft = new boolean[DEFAULT_CAPACITY];
+  private boolean[] mVisible = new boolean[DEFAULT_CAPACITY];
+  // The wanted height of each label in the upper 32 bits, so that sorting the keys sorts
+  // the labels, and the label index in the lower 32 bits.
+  private long[] mKeys = new long[DEFAULT_CAPACITY];
+
+  /**
+   * Set where the pie is.
+   *
+   * @param centerX The x position of the pie center.
+   * @param centerY The y position of the pie center.
+   * @param radius  The radius of the pie.
+   */
+  public void setPie(float centerX, float centerY, float radius) {
+    mCenterX = centerX;
+    mCenterY = centerY;
+    mRadius = radius;
+  }
+
+  /**
+   * Set the size of the labels and of the lines leading to them.
+   *
+   * @param labelHeight  The height of a label.
+   * @param spacing      The smallest gap between two labels on the same side.
+   * @param leaderLength How far beyond the pie edge the leader lines reach before they
+   *                     turn toward the label column.
+   */
+  public void setLabelSize(float labelHeight, float spacing, float leaderLength) {
+    if (labelHeight < 0 || spacing < 0 || leaderLength < 0) {
+      throw new IllegalArgumentException("label sizes must not be negative");
+    }
+    mLabelHeight = labelHeight;
+    mSpacing = spacing;
+    mLeaderLength = leaderLength;
+  }
+
+  /**
+   * Set the room the labels have.
+   *
+   * @param top      The top edge of the area the labels must stay in.
+   * @param bottom   The bottom edge of the area the labels must stay in.
+   * @param maxShift How far a label may be pushed down from where it wants to be before it
+   *                 is hidden instead.
+   */
+  public void setBounds(float top, float bottom, float maxShift) {
+    if (maxShift < 0) {
+      throw new IllegalArgumentException("maxShift must not be negative");
+    }
+    mTop = top;
+    mBottom = bottom;
+    mMaxShift = maxShift;
+  }
+
+  /**
+   * Place the labels of the given slices.
+   *
+   * @param angles The screen angle of the middle of each slice, in degrees.
+   * @param count  The number of slices.
+   */
+  public void place(float[] angles, int count) {
+    ensureCapacity(count);
+    mSize = count;
+    float outer = mRadius + mLeaderLength;
+    float half = mLabelHeight / 2;
+    int right = 0;
+    int left = 0;
+    for (int i = 0; i < count; ++i) {
+      double radians = Math.toRadians(angles[i]);
+      float cos = (float) Math.cos(radians);
+      float sin = (float) Math.sin(radians);
+      mAnchorX[i] = mCenterX + mRadius * cos;
+      mAnchorY[i] = mCenterY - mRadius * sin;
+      mElbowX[i] = mCenterX + outer * cos;
+      // Labels that want to be beyond the edges are pulled in before the sweep, so only
+      // the pushing of other labels counts against the shift.
+      mLabelY[i] = Math.max(mTop + half, Math.min(mCenterY - outer * sin, mBottom - half));
+      mLeft[i] = cos < 0;
+      long key = ((long) sortableBits(mLabelY[i]) << 32) | i;
+      // Right side keys fill the buffer from the front, left side keys from the back.
+      if (mLeft[i]) {
+        mKeys[count - 1 - left++] = key;
+      } else {
+        mKeys[right++] = key;
+      }
+    }
+    Arrays.sort(mKeys, 0, right);
+    Arrays.sort(mKeys, right, count);
+    mVisibleCount = sweep(0, right) + sweep(right, count);
+  }
+
+  /**
+   * Place the sorted labels of one side from the top down.
+   *
+   * @return The number of labels that fit.
+   */
+  private int sweep(int from, int to) {
+    float half = mLabelHeight / 2;
+    float pitch = mLabelHeight + mSpacing;
+    // The highest position the next label can take without overlapping the last one.
+    float next = mTop + half;
+    int visible = 0;
+    for (int k = from; k < to; ++k) {
+      int i = (int) mKeys[k];
+      float wanted = mLabelY[i];
+      float y = Math.max(wanted, next);
+      if (y - wanted > mMaxShift || y + half > mBottom) {
+        mVisible[i] = false;
+        continue;
+      }
+      mVisible[i] = true;
+      mLabelY[i] = y;
+      next = y + pitch;
+      visible++;
+    }
+    return visible;
+  }
+
+  /**
+   * Returns the number of labels placed.
+   */
+  public int size() {
+    return mSize;
+  }
+
+  /**
+   * Returns the number of labels that fit.
+   */
+  public int visibleCount() {
+    return mVisibleCount;
+  }
+
+  /**
+   * Returns true if the label of a slice fits and should be drawn.
+   */
+  public boolean isVisible(int index) {
+    checkIndex(index);
+    return mVisible[index];
+  }
+
+  /**
+   * Returns true if the label of a slice goes in the left column.
+   */
+  public boolean isOnLeft(int index) {
+    checkIndex(index);
+    return mLeft[index];
+  }
+
+  /**
+   * Returns the x position of the point on the pie edge where the leader line starts.
+   */
+  public float anchorX(int index) {
+    checkIndex(index);
+    return mAnchorX[index];
+  }
+
+  /**
+   * Returns the y position of the point on the pie edge where the leader line starts.
+   */
+  public float anchorY(int index) {
+    checkIndex(index);
+    return mAnchorY[index];
+  }
+
+  /**
+   * Returns the x position where the leader line turns toward the label column. The line
+   * turns at the height of the label, {@link #labelY(int)}.
+   */
+  public float elbowX(int index) {
+    checkIndex(index);
+    return mElbowX[index];
+  }
+
+  /**
+   * Returns the x position of the side of the label column that faces the pie, where the
+   * leader line ends.
+   */
+  public float labelX(int index) {
+    checkIndex(index);
+    float outer = mRadius + mLeaderLength;
+    return mLeft[index] ? mCenterX - outer : mCenterX + outer;
+  }
+
+  /**
+   * Returns the y position of the middle of the label. Only meaningful for visible labels.
+   */
+  public float labelY(int index) {
+    checkIndex(index);
+    return mLabelY[index];
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= mKeys.length) {
+      return;
+    }
+    capacity = Math.max(capacity, mKeys.length * 2);
+    mAnchorX = Arrays.copyOf(mAnchorX, capacity);
+    mAnchorY = Arrays.copyOf(mAnchorY, capacity);
+    mElbowX = Arrays.copyOf(mElbowX, capacity);
+    mLabelY = Arrays.copyOf(mLabelY, capacity);
+    mLeft = Arrays.copyOf(mLeft, capacity);
+    mVisible = Arrays.copyOf(mVisible, capacity);
+    mKeys = new long[capacity];
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= mSize) {
+      throw new IndexOutOfBoundsException("index " + index + ", size " + mSize);
+    }
+  }
+
+  /**
+   * Map a float to an int that sorts the same way.
+   */
+  private static int sortableBits(float value) {
+    int bits = Float.floatToIntBits(value);
+    return bits < 0 ? bits ^ 0x7fffffff : bits;
+  }
+}
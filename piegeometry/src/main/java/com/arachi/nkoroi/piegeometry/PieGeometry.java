@@ -0,0 +1,92 @@
+package com.arachi.nkoroi.piegeometry;
+
+/**
+ * The geometry helpers of a pie chart that don't depend on the data.
+ *
+ * Angles are in degrees. Data angles, like the ones computed by {@link SliceStore}, go
+ * counterclockwise from the positive x axis with the y axis pointing up.
+ */
+public final class PieGeometry {
+
+  private PieGeometry() {
+  }
+
+  /**
+   * Bring an angle into the range [0, 360).
+   *
+   * @param angle An angle in degrees.
+   * @return The same angle, between 0 inclusive and 360 exclusive.
+   */
+  public static float normalizeAngle(float angle) {
+    angle %= 360;
+    if (angle < 0) {
+      angle += 360;
+    }
+    // -0.0001f % 360 + 360 rounds to 360
+    return angle >= 360 ? 0 : angle;
+  }
+
+  /**
+   * Convert an angle measured on screen into an angle in the data of a rotated pie.
+   *
+   * @param angle    The angle on screen.
+   * @param rotation The rotation of the pie.
+   * @return The data angle that currently sits at the given screen angle.
+   */
+  public static float pieAngle(float angle, float rotation) {
+    return normalizeAngle(angle + rotation);
+  }
+
+  /**
+   * Measure the angle of a point around the pie center, the same way as data angles are
+   * measured, from screen coordinates where the y axis points down.
+   *
+   * @param dx The x position of the point, relative to the pie center.
+   * @param dy The y position of the point, relative to the pie center, growing downward.
+   * @return The angle of the point, in degrees between 0 inclusive and 360 exclusive.
+   */
+  public static float screenAngle(float dx, float dy) {
+    return normalizeAngle((float) Math.toDegrees(Math.atan2(-dy, dx)));
+  }
+
+  /**
+   * Work out the angle at which the current-item pointer meets the pie. The pointer runs
+   * horizontally from the label to the pie, so it meets the pie at 45 degrees from the
+   * vertical, on the side of the label and on the side of the pie center the label is on.
+   *
+   * @param labelOnLeft   True if the label is to the left of the pie.
+   * @param pointerOffset How far the pointer is above the pie center. Negative if the
+   *                      pointer is below the center.
+   * @return The pointer angle, in degrees.
+   */
+  public static float pointerAngle(boolean labelOnLeft, float pointerOffset) {
+    if (labelOnLeft) {
+      return pointerOffset < 0 ? 225 : 135;
+    }
+    return pointerOffset < 0 ? 315 : 45;
+  }
+
+  /**
+   * Translate an (x,y) scroll vector into a scalar rotation of the pie.
+   *
+   * @param dx The x component of the current scroll vector.
+   * @param dy The y component of the current scroll vector.
+   * @param x  The x position of the current touch, relative to the pie center.
+   * @param y  The y position of the current touch, relative to the pie center.
+   * @return The scalar representing the change in angular position for this scroll.
+   */
+  public static float vectorToScalarScroll(float dx, float dy, float x, float y) {
+    //get the length of the vector
+    float l = (float) Math.sqrt(dx * dx + dy * dy);
+
+    //decide if the scalar should be negative or positive by finding
+    //the dot product of the vector perpendicular to (x,y).
+    float crossX = -y;
+    float crossY = x;
+
+    float dot = (crossX * dx + crossY * dy);
+    float sign = Math.signum(dot);
+
+    return l * sign;
+  }
+}
@@ -0,0 +1,111 @@
+package com.arachi.nkoroi.piegeometry;
+
+/**
+ * Folds the slices of a pie chart that are too thin to see into a single "Other" slice.
+ *
+ * {@link #aggregate} reads the items of a source store and writes the slices to draw into
+ * a display store: every item whose sweep is at least the threshold, in source order,
+ * followed by one slice that sums up all of the thinner items. The aggregator remembers
+ * which source item each displayed slice stands for and which items went into "Other".
+ * Both stores and the index buffers are reused, so aggregating the same amount of data
+ * again doesn't allocate.
+ */
+public final class SliceAggregator {
+  private static final int DEFAULT_CAPACITY = 8;
+
+  // The source index of each displayed slice, or -1 for the "Other" slice.
+  private int[] mSourceIndex = new int[DEFAULT_CAPACITY];
+  // The source indices of the items folded into "Other", in source order.
+  private int[] mMembers = new int[DEFAULT_CAPACITY];
+  private int mMemberCount = 0;
+  private int mOtherIndex = -1;
+
+  /**
+   * Write the slices to draw for the given source items into the display store. A single
+   * thin item is shown as it is, since folding it wouldn't save anything.
+   *
+   * @param source         The items to show.
+   * @param minSweep       The smallest sweep, in degrees, of an item that is shown as a
+   *                       slice of its own.
+   * @param otherLabel     The label of the "Other" slice.
+   * @param otherColor     The color of the "Other" slice.
+   * @param otherHighlight The highlight color of the "Other" slice.
+   * @param display        The store that receives the slices to draw. Its previous
+   *                       contents are cleared.
+   */
+  public void aggregate(SliceStore source, float minSweep, String otherLabel,
+      int otherColor, int otherHighlight, SliceStore display) {
+    int count = source.size();
+    if (mSourceIndex.length < count + 1) {
+      mSourceIndex = new int[count + 1];
+    }
+    if (mMembers.length < count) {
+      mMembers = new int[count];
+    }
+
+    mMemberCount = 0;
+    for (int i = 0; i < count; ++i) {
+      if (source.sweepAngle(i) < minSweep) {
+        mMembers[mMemberCount++] = i;
+      }
+    }
+    if (mMemberCount < 2) {
+      mMemberCount = 0;
+    }
+
+    display.clear();
+    display.ensureCapacity(count - mMemberCount + 1);
+    float otherValue = 0;
+    int member = 0;
+    for (int i = 0; i < count; ++i) {
+      if (member < mMemberCount && mMembers[member] == i) {
+        otherValue += source.value(i);
+        member++;
+        continue;
+      }
+      mSourceIndex[display.add(source.label(i), source.value(i), source.color(i),
+          source.highlight(i))] = i;
+    }
+    mOtherIndex = -1;
+    if (mMemberCount > 0) {
+      mOtherIndex = display.add(otherLabel, otherValue, otherColor, otherHighlight);
+      mSourceIndex[mOtherIndex] = -1;
+    }
+    display.layout();
+  }
+
+  /**
+   * Returns the index of the source item shown by a displayed slice, or -1 for the
+   * "Other" slice.
+   */
+  public int sourceIndex(int displayIndex) {
+    return mSourceIndex[displayIndex];
+  }
+
+  /**
+   * Returns the index of the "Other" slice in the display store, or -1 if no items were
+   * folded.
+   */
+  public int otherIndex() {
+    return mOtherIndex;
+  }
+
+  /**
+   * Returns the number of source items folded into the "Other" slice.
+   */
+  public int memberCount() {
+    return mMemberCount;
+  }
+
+  /**
+   * Returns the source index of an item folded into the "Other" slice.
+   *
+   * @param index Between 0 and {@link #memberCount()}, in source order.
+   */
+  public int member(int index) {
+    if (index < 0 || index >= mMemberCount) {
+      throw new IndexOutOfBoundsException("index " + index + ", size " + mMemberCount);
+    }
+    return mMembers[index];
+  }
+}
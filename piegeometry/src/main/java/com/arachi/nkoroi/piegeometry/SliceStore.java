@@ -0,0 +1,318 @@
+package com.arachi.nkoroi.piegeometry;
+
+import java.util.Arrays;
+
+/**
+ * Holds the data items of a pie chart.
+ *
+ * Instead of keeping one object per item, every field lives in its own primitive array
+ * and item i is the i-th entry of each array. Drawing the pie walks the arrays in order,
+ * so the data stays contiguous in memory and nothing is boxed or allocated per item.
+ * The arrays grow geometrically, so adding n items costs amortized O(n).
+ *
+ * Angles are derived on demand from the running sum of the values, by a single scale
+ * factor. The running sum is kept twice: in a {@link FenwickTree}, where changing one
+ * value and summing a prefix both take O(log n), and in a plain array that is only valid
+ * up to the first item whose value changed since. Changing a value costs O(log n) and
+ * doesn't touch the angles of the later items; they are computed from the tree when
+ * asked for, and the array catches up again, one item at a time, as the items are read
+ * in order, which is how the pie is drawn.
+ */
+public final class SliceStore {
+  private static final int DEFAULT_CAPACITY = 8;
+
+  private String[] mLabels;
+  private float[] mValues;
+  private int[] mColors;
+  private int[] mHighlights;
+
+  // The prefix sums of the values, in double precision.
+  private FenwickTree mTree;
+  // mCumulative[i] is the sum of the values of items 0 to i, added up in order. Only the
+  // first mValidCount entries are up to date.
+  private double[] mCumulative;
+  private int mValidCount = 0;
+  // Degrees per unit of value.
+  private double mScale = 0.0;
+
+  private int mSize = 0;
+
+  public SliceStore() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public SliceStore(int capacity) {
+    capacity = Math.max(capacity, 1);
+    mLabels = new String[capacity];
+    mValues = new float[capacity];
+    mColors = new int[capacity];
+    mHighlights = new int[capacity];
+    mCumulative = new double[capacity];
+    mTree = new FenwickTree(capacity);
+  }
+
+  /**
+   * Add an item to the end of the store.
+   *
+   * @return The index of the new item.
+   */
+  public int add(String label, float value, int color, int highlight) {
+    ensureCapacity(mSize + 1);
+    mLabels[mSize] = label;
+    mValues[mSize] = value;
+    mColors[mSize] = color;
+    mHighlights[mSize] = highlight;
+    mTree.push(value);
+    if (mValidCount == mSize) {
+      mCumulative[mSize] = cumulativeBefore(mSize) + value;
+      mValidCount++;
+    }
+    mSize++;
+    updateScale();
+    return mSize - 1;
+  }
+
+  /**
+   * Change the value of an item, in O(log n). The angles of the later items are not
+   * recomputed until they are asked for.
+   */
+  public void setValue(int index, float value) {
+    checkIndex(index);
+    mTree.add(index, (double) value - mValues[index]);
+    mValues[index] = value;
+    invalidateFrom(index);
+    updateScale();
+  }
+
+  /**
+   * Remove an item. The later items move down by one, so this takes O(n), and the prefix
+   * sums are rebuilt in the same pass.
+   */
+  public void remove(int index) {
+    checkIndex(index);
+    int tail = mSize - index - 1;
+    System.arraycopy(mLabels, index + 1, mLabels, index, tail);
+    System.arraycopy(mValues, index + 1, mValues, index, tail);
+    System.arraycopy(mColors, index + 1, mColors, index, tail);
+    System.arraycopy(mHighlights, index + 1, mHighlights, index, tail);
+    mSize--;
+    mLabels[mSize] = null;
+    mTree.build(mValues, mSize);
+    invalidateFrom(index);
+    updateScale();
+  }
+
+  /**
+   * Move an item to a new position. Only the values between the two positions change
+   * place, so this takes O(k log n) for a move over k items.
+   */
+  public void move(int from, int to) {
+    checkIndex(from);
+    checkIndex(to);
+    if (from == to) {
+      return;
+    }
+    String label = mLabels[from];
+    float value = mValues[from];
+    int color = mColors[from];
+    int highlight = mHighlights[from];
+    int low = Math.min(from, to);
+    int high = Math.max(from, to);
+    for (int i = low; i <= high; ++i) {
+      mTree.add(i, -mValues[i]);
+    }
+    // Shift the items in between by one towards the old position.
+    int src = from < to ? from + 1 : to;
+    int dst = from < to ? from : to + 1;
+    int count = high - low;
+    System.arraycopy(mLabels, src, mLabels, dst, count);
+    System.arraycopy(mValues, src, mValues, dst, count);
+    System.arraycopy(mColors, src, mColors, dst, count);
+    System.arraycopy(mHighlights, src, mHighlights, dst, count);
+    mLabels[to] = label;
+    mValues[to] = value;
+    mColors[to] = color;
+    mHighlights[to] = highlight;
+
+    for (int i = low; i <= high; ++i) {
+      mTree.add(i, mValues[i]);
+    }
+    invalidateFrom(low);
+  }
+
+  /**
+   * Remove all items. The backing arrays are kept so that the store can be refilled
+   * without allocating.
+   */
+  public void clear() {
+    Arrays.fill(mLabels, 0, mSize, null);
+    mTree.clear();
+    mSize = 0;
+    mValidCount = 0;
+    mScale = 0.0;
+  }
+
+  /**
+   * Make sure the store can hold at least the given number of items without growing.
+   */
+  public void ensureCapacity(int capacity) {
+    if (capacity <= mLabels.length) {
+      return;
+    }
+    int newCapacity = Math.max(capacity, mLabels.length * 2);
+    mLabels = Arrays.copyOf(mLabels, newCapacity);
+    mValues = Arrays.copyOf(mValues, newCapacity);
+    mColors = Arrays.copyOf(mColors, newCapacity);
+    mHighlights = Arrays.copyOf(mHighlights, newCapacity);
+    mCumulative = Arrays.copyOf(mCumulative, newCapacity);
+    mTree.ensureCapacity(newCapacity);
+  }
+
+  /**
+   * Recompute the running sum of the values from scratch, in O(n). The store keeps the
+   * running sum up to date as items change, so this is only needed to drop the rounding
+   * error that a long series of {@link #setValue(int, float)} calls can build up.
+   *
+   * Angles are derived from the running sum in double precision and scaled once per
+   * item. Every item starts exactly where the previous one ends, and the last item
+   * always ends at exactly 360 degrees. Sweeps are taken from the double precision
+   * angles, so a tiny item keeps a non-zero sweep even where its start and end round to
+   * the same float.
+   */
+  public void layout() {
+    double cumulative = 0.0;
+    for (int i = 0; i < mSize; ++i) {
+      cumulative += mValues[i];
+      mCumulative[i] = cumulative;
+    }
+    mValidCount = mSize;
+    mTree.build(mValues, mSize);
+    updateScale();
+  }
+
+  /**
+   * Find the item whose slice contains the given angle, in O(log n). When the angle lies
+   * exactly on the boundary between two items, the earlier item is returned.
+   *
+   * @param angle An angle in degrees, between 0 and 360.
+   * @return The index of the item, or -1 if no item covers the angle.
+   */
+  public int indexOfAngle(float angle) {
+    if (mValidCount < mSize && mScale > 0) {
+      // Descend the tree to the item the angle falls into. Its sums may round differently
+      // from the angles, so check the result and fall back to the binary search below in
+      // the rare case it is off.
+      int index = mTree.lastCountBelow(angle / mScale);
+      if (index < mSize && startAngle(index) <= angle && endAngle(index) >= angle
+          && (index == 0 || endAngle(index - 1) < angle)) {
+        return index;
+      }
+    }
+    int low = 0;
+    int high = mSize - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (endAngle(mid) < angle) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    if (low < mSize && startAngle(low) <= angle) {
+      return low;
+    }
+    return -1;
+  }
+
+  public int size() {
+    return mSize;
+  }
+
+  public int capacity() {
+    return mLabels.length;
+  }
+
+  public float total() {
+    return (float) cumulativeBefore(mSize);
+  }
+
+  public String label(int index) {
+    return mLabels[index];
+  }
+
+  public float value(int index) {
+    return mValues[index];
+  }
+
+  public int color(int index) {
+    return mColors[index];
+  }
+
+  public int highlight(int index) {
+    return mHighlights[index];
+  }
+
+  public float startAngle(int index) {
+    return (float) exactEndAngle(index - 1);
+  }
+
+  public float sweepAngle(int index) {
+    return (float) (exactEndAngle(index) - exactEndAngle(index - 1));
+  }
+
+  public float endAngle(int index) {
+    return (float) exactEndAngle(index);
+  }
+
+  /**
+   * Returns the end angle of an item in double precision, or 0 for index -1.
+   */
+  private double exactEndAngle(int index) {
+    if (index < 0) {
+      return 0.0;
+    }
+    if (index == mSize - 1 && mScale > 0) {
+      return 360.0;
+    }
+    return cumulative(index) * mScale;
+  }
+
+  /**
+   * Returns the sum of the values of items 0 to index. Reading the item right after the
+   * valid part of the running sum extends it, so reading the items in order costs O(1)
+   * per item; any other item is summed from the tree in O(log n).
+   */
+  private double cumulative(int index) {
+    if (index < mValidCount) {
+      return mCumulative[index];
+    }
+    if (index == mValidCount) {
+      mCumulative[index] = cumulativeBefore(index) + mValues[index];
+      mValidCount++;
+      return mCumulative[index];
+    }
+    return mTree.prefixSum(index + 1);
+  }
+
+  private double cumulativeBefore(int index) {
+    return index == 0 ? 0.0 : cumulative(index - 1);
+  }
+
+  /**
+   * Mark the running sum as out of date from the given item on.
+   */
+  private void invalidateFrom(int index) {
+    mValidCount = Math.min(mValidCount, index);
+  }
+
+  private void updateScale() {
+    double total = mValidCount == mSize ? cumulativeBefore(mSize) : mTree.prefixSum(mSize);
+    mScale = total > 0 ? 360.0 / total : 0.0;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= mSize) {
+      throw new IndexOutOfBoundsException("index " + index + ", size " + mSize);
+    }
+  }
+}
@@ -0,0 +1,285 @@
+package com.arachi.nkoroi.piegeometry;
+
+import java.util.Arrays;
+
+/**
+ * Morphs the slices of a pie chart from one data set to the next.
+ *
+ * The transition keeps the slices that are currently on screen. When the data changes,
+ * {@link #retarget(SliceStore)} matches the new items to the displayed slices by label:
+ * matched slices move from their current angles to their new ones, new items grow out
+ * of the middle of their final position, and slices whose item is gone shrink into
+ * their own middle. Items that share a label are matched in order: the first new item
+ * with a label takes over the first displayed slice with it, and so on.
+ * {@link #setFraction(float)} then writes the interpolated angles of every slice into
+ * preallocated buffers, so a whole transition is driven by a single animated fraction
+ * and doesn't allocate per frame.
+ *
+ * Retargeting reads the slices on screen while it writes the new ones, so there are two
+ * sets of buffers that swap roles on every retarget. Labels are matched through an
+ * open-addressing table of slice indices. All of the buffers only grow, so data changes
+ * at frame rate don't allocate once the largest data set has been seen.
+ */
+public final class SliceTransition {
+  private static final int DEFAULT_CAPACITY = 8;
+
+  // The slices on screen, and the buffers the next retarget writes into.
+  private Buffers mShown = new Buffers(DEFAULT_CAPACITY);
+  private Buffers mSpare = new Buffers(DEFAULT_CAPACITY);
+  private int mCount = 0;
+
+  // The number of slices that remain once the transition ends. Shrinking slices are
+  // kept after them until then.
+  private int mTargetCount = 0;
+
+  // The label table used by retarget(). Each used slot holds the first old slice with
+  // its label; mSlotNext holds the next old slice with that label that isn't matched yet.
+  private int[] mSlots = new int[DEFAULT_CAPACITY * 2];
+  private int[] mSlotNext = new int[DEFAULT_CAPACITY * 2];
+  // The next old slice with the same label, in order.
+  private int[] mSameLabel = new int[DEFAULT_CAPACITY];
+  private boolean[] mMatched = new boolean[DEFAULT_CAPACITY];
+
+  /**
+   * Show the given data without a transition.
+   */
+  public void snapTo(SliceStore store) {
+    int count = store.size();
+    mShown.ensureCapacity(count);
+    Buffers shown = mShown;
+    for (int i = 0; i < count; ++i) {
+      shown.mLabels[i] = store.label(i);
+      shown.mColors[i] = store.color(i);
+      shown.mToStart[i] = shown.mFromStart[i] = shown.mStart[i] = store.startAngle(i);
+      shown.mToSweep[i] = shown.mFromSweep[i] = shown.mSweep[i] = store.sweepAngle(i);
+    }
+    Arrays.fill(shown.mLabels, count, Math.max(mCount, count), null);
+    mCount = mTargetCount = count;
+  }
+
+  /**
+   * Start a transition from the slices currently shown to the given data. The fraction
+   * is reset to 0.
+   */
+  public void retarget(SliceStore store) {
+    int oldCount = mCount;
+    Buffers old = mShown;
+    indexLabels(old.mLabels, oldCount);
+
+    int newCount = store.size();
+    mSpare.ensureCapacity(newCount + oldCount);
+    Buffers next = mSpare;
+    for (int i = 0; i < newCount; ++i) {
+      String label = store.label(i);
+      next.mLabels[i] = label;
+      next.mColors[i] = store.color(i);
+      next.mToStart[i] = store.startAngle(i);
+      next.mToSweep[i] = store.sweepAngle(i);
+
+      int match = takeMatch(label, old.mLabels);
+      if (match >= 0) {
+        next.mFromStart[i] = old.mStart[match];
+        next.mFromSweep[i] = old.mSweep[match];
+      } else {
+        next.mFromStart[i] = next.mToStart[i] + next.mToSweep[i] / 2;
+        next.mFromSweep[i] = 0;
+      }
+    }
+
+    int count = newCount;
+    for (int i = 0; i < oldCount; ++i) {
+      if (mMatched[i] || old.mSweep[i] <= 0) {
+        continue;
+      }
+      next.mLabels[count] = old.mLabels[i];
+      next.mColors[count] = old.mColors[i];
+      next.mFromStart[count] = old.mStart[i];
+      next.mFromSweep[count] = old.mSweep[i];
+      next.mToStart[count] = old.mStart[i] + old.mSweep[i] / 2;
+      next.mToSweep[count] = 0;
+      count++;
+    }
+    // The spare labels are always cleared, so that they don't hold on to old strings.
+    Arrays.fill(old.mLabels, 0, oldCount, null);
+    mShown = next;
+    mSpare = old;
+    mCount = count;
+    mTargetCount = newCount;
+    setFraction(0);
+  }
+
+  /**
+   * Move every slice to the given point of the transition.
+   *
+   * @param fraction The progress of the transition, from 0 at the start to 1 at the end.
+   */
+  public void setFraction(float fraction) {
+    Buffers shown = mShown;
+    for (int i = 0; i < mCount; ++i) {
+      shown.mStart[i] = shown.mFromStart[i]
+          + (shown.mToStart[i] - shown.mFromStart[i]) * fraction;
+      shown.mSweep[i] = shown.mFromSweep[i]
+          + (shown.mToSweep[i] - shown.mFromSweep[i]) * fraction;
+    }
+  }
+
+  /**
+   * Jump to the end of the transition and drop the slices that shrank away.
+   */
+  public void finish() {
+    setFraction(1);
+    Buffers shown = mShown;
+    Arrays.fill(shown.mLabels, mTargetCount, mCount, null);
+    mCount = mTargetCount;
+    for (int i = 0; i < mCount; ++i) {
+      shown.mFromStart[i] = shown.mToStart[i];
+      shown.mFromSweep[i] = shown.mToSweep[i];
+    }
+  }
+
+  /**
+   * Forget the slices on screen. The next data set has to be shown with
+   * {@link #snapTo(SliceStore)}.
+   */
+  public void reset() {
+    Arrays.fill(mShown.mLabels, 0, mCount, null);
+    mCount = mTargetCount = 0;
+  }
+
+  /**
+   * Returns the number of slices to draw, including the ones that are shrinking away.
+   */
+  public int size() {
+    return mCount;
+  }
+
+  public String label(int index) {
+    return mShown.mLabels[index];
+  }
+
+  public int color(int index) {
+    return mShown.mColors[index];
+  }
+
+  public float startAngle(int index) {
+    return mShown.mStart[index];
+  }
+
+  public float sweepAngle(int index) {
+    return mShown.mSweep[index];
+  }
+
+  public float endAngle(int index) {
+    return mShown.mStart[index] + mShown.mSweep[index];
+  }
+
+  /**
+   * Fill the label table with the given slices, and mark them all unmatched.
+   */
+  private void indexLabels(String[] labels, int count) {
+    int size = Integer.highestOneBit(Math.max(count, 1) * 2 - 1) * 2;
+    if (mSlots.length < size) {
+      mSlots = new int[size];
+      mSlotNext = new int[size];
+    }
+    if (mSameLabel.length < count) {
+      int capacity = Math.max(count, mSameLabel.length * 2);
+      mSameLabel = new int[capacity];
+      mMatched = new boolean[capacity];
+    }
+    Arrays.fill(mSlots, -1);
+    Arrays.fill(mMatched, 0, count, false);
+    int mask = mSlots.length - 1;
+    // Going backwards and putting each slice at the front of its label's list leaves
+    // every list in order.
+    for (int i = count - 1; i >= 0; --i) {
+      int slot = findSlot(labels[i], labels, mask);
+      if (mSlots[slot] < 0) {
+        mSameLabel[i] = -1;
+      } else {
+        mSameLabel[i] = mSlotNext[slot];
+      }
+      mSlots[slot] = i;
+      mSlotNext[slot] = i;
+    }
+  }
+
+  /**
+   * Returns the first old slice with the given label that isn't matched yet, and marks it
+   * matched, or returns -1 if there is none.
+   */
+  private int takeMatch(String label, String[] oldLabels) {
+    int slot = findSlot(label, oldLabels, mSlots.length - 1);
+    int match = mSlots[slot] < 0 ? -1 : mSlotNext[slot];
+    if (match >= 0) {
+      mMatched[match] = true;
+      mSlotNext[slot] = mSameLabel[match];
+    }
+    return match;
+  }
+
+  /**
+   * Returns the slot of the table that holds the given label, or the empty slot where it
+   * would go. Linear probing; the table is at most half full.
+   */
+  private int findSlot(String label, String[] labels, int mask) {
+    int slot = (label == null ? 0 : mix(label.hashCode())) & mask;
+    while (mSlots[slot] >= 0 && !sameLabel(labels[mSlots[slot]], label)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private static boolean sameLabel(String a, String b) {
+    return a == null ? b == null : a.equals(b);
+  }
+
+  /**
+   * Spread the bits of a hash code, so that similar labels don't crowd one part of the
+   * table.
+   */
+  private static int mix(int hash) {
+    hash *= 0x9e3779b9;
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * The per-slice buffers of one set of slices.
+   */
+  private static final class Buffers {
+    String[] mLabels;
+    int[] mColors;
+    float[] mFromStart;
+    float[] mFromSweep;
+    float[] mToStart;
+    float[] mToSweep;
+    // The interpolated angles, read when drawing.
+    float[] mStart;
+    float[] mSweep;
+
+    Buffers(int capacity) {
+      allocate(capacity);
+    }
+
+    /**
+     * Make sure the buffers hold at least the given number of slices. Growing drops the
+     * contents; callers fill the buffers completely before reading.
+     */
+    void ensureCapacity(int capacity) {
+      if (capacity > mLabels.length) {
+        allocate(Math.max(capacity, mLabels.length * 2));
+      }
+    }
+
+    private void allocate(int capacity) {
+      mLabels = new String[capacity];
+      mColors = new int[capacity];
+      mFromStart = new float[capacity];
+      mFromSweep = new float[capacity];
+      mToStart = new float[capacity];
+      mToSweep = new float[capacity];
+      mStart = new float[capacity];
+      mSweep = new float[capacity];
+    }
+  }
+}
@@ -0,0 +1,368 @@
+package com.arachi.nkoroi.piegeometry;
+
+import java.util.Arrays;
+
+/**
+ * The data of a sunburst chart: a tree of items drawn as concentric rings, where the
+ * children of a node share out its part of the circle in the next ring.
+ *
+ * Only the leaves carry values; the value of any other node is the sum of the leaves
+ * below it. {@link #layout()} walks the tree once, depth first, with a running sum of the
+ * leaf values: a node starts where the sum stands when the walk enters it and ends where
+ * it stands when the walk leaves it, after all of its leaves were counted. That gives
+ * every node of every ring its angles in O(n), without summing any subtree twice.
+ *
+ * The walk reaches the nodes of each ring in the order they go around the circle, so it
+ * also records every ring as a list sorted by angle, which {@link #nodeAt(int, float)}
+ * searches in O(log n). Nodes are stored in parallel arrays and linked by index, so the
+ * walk needs neither recursion nor a stack.
+ */
+public final class SunburstTree {
+
+  /**
+   * The parent of the nodes of the innermost ring.
+   */
+  public static final int ROOT = -1;
+
+  private static final int DEFAULT_CAPACITY = 8;
+
+  private int mSize = 0;
+  private String[] mLabels = new String[DEFAULT_CAPACITY];
+  private float[] mValues = new float[DEFAULT_CAPACITY];
+  private int[] mColors = new int[DEFAULT_CAPACITY];
+  private int[] mParents = new int[DEFAULT_CAPACITY];
+  private int[] mDepths = new int[DEFAULT_CAPACITY];
+  private int[] mFirstChildren = new int[DEFAULT_CAPACITY];
+  private int[] mLastChildren = new int[DEFAULT_CAPACITY];
+  private int[] mNextSiblings = new int[DEFAULT_CAPACITY];
+  private int mFirstRoot = -1;
+  private int mLastRoot = -1;
+
+  // Filled by layout().
+  private boolean mLaidOut = false;
+  private double mTotal = 0;
+  // The running sum when the walk entered and left each node.
+  private double[] mStartSums = new double[DEFAULT_CAPACITY];
+  private double[] mEndSums = new double[DEFAULT_CAPACITY];
+  private float[] mStartAngles = new float[DEFAULT_CAPACITY];
+  private float[] mEndAngles = new float[DEFAULT_CAPACITY];
+  // The nodes of ring r are mRingNodes[mRingOffsets[r]] to mRingNodes[mRingOffsets[r + 1] - 1].
+  private int mRingCount = 0;
+  private int[] mRingOffsets = new int[DEFAULT_CAPACITY];
+  private int[] mRingNodes = new int[DEFAULT_CAPACITY];
+
+  /**
+   * Add a node after the existing children of its parent.
+   *
+   * @param parent The index of the parent node, or {@link #ROOT} for the innermost ring.
+   * @param label  The label of the node.
+   * @param value  The value of the node. Only counts if the node gets no children. Must
+   *               not be negative.
+   * @param color  The ARGB color of the node.
+   * @return The index of the new node.
+   */
+  public int add(int parent, String label, float value, int color) {
+    if (parent < ROOT || parent >= mSize) {
+      throw new IndexOutOfBoundsException("parent " + parent + ", size " + mSize);
+    }
+    if (!(value >= 0)) {
+      throw new IllegalArgumentException("value must not be negative");
+    }
+    ensureCapacity(mSize + 1);
+    int node = mSize++;
+    mLabels[node] = label;
+    mValues[node] = value;
+    mColors[node] = color;
+    mParents[node] = parent;
+    mDepths[node] = parent == ROOT ? 0 : mDepths[parent] + 1;
+    mFirstChildren[node] = -1;
+    mLastChildren[node] = -1;
+    mNextSiblings[node] = -1;
+    if (parent == ROOT) {
+      if (mLastRoot < 0) {
+        mFirstRoot = node;
+      } else {
+        mNextSiblings[mLastRoot] = node;
+      }
+      mLastRoot = node;
+    } else {
+      if (mLastChildren[parent] < 0) {
+        mFirstChildren[parent] = node;
+      } else {
+        mNextSiblings[mLastChildren[parent]] = node;
+      }
+      mLastChildren[parent] = node;
+    }
+    mLaidOut = false;
+    return node;
+  }
+
+  /**
+   * Remove all nodes. The buffers are kept.
+   */
+  public void clear() {
+    Arrays.fill(mLabels, 0, mSize, null);
+    mSize = 0;
+    mFirstRoot = -1;
+    mLastRoot = -1;
+    mLaidOut = false;
+  }
+
+  public int size() {
+    return mSize;
+  }
+
+  /**
+   * Make this tree a copy of another one, including its layout. The buffers of this tree
+   * are reused where they are large enough.
+   *
+   * @param source The tree to copy. Must be laid out.
+   */
+  public void set(SunburstTree source) {
+    source.checkLaidOut();
+    int size = source.mSize;
+    clear();
+    ensureCapacity(size);
+    System.arraycopy(source.mLabels, 0, mLabels, 0, size);
+    System.arraycopy(source.mValues, 0, mValues, 0, size);
+    System.arraycopy(source.mColors, 0, mColors, 0, size);
+    System.arraycopy(source.mParents, 0, mParents, 0, size);
+    System.arraycopy(source.mDepths, 0, mDepths, 0, size);
+    System.arraycopy(source.mFirstChildren, 0, mFirstChildren, 0, size);
+    System.arraycopy(source.mLastChildren, 0, mLastChildren, 0, size);
+    System.arraycopy(source.mNextSiblings, 0, mNextSiblings, 0, size);
+    System.arraycopy(source.mStartSums, 0, mStartSums, 0, size);
+    System.arraycopy(source.mEndSums, 0, mEndSums, 0, size);
+    System.arraycopy(source.mStartAngles, 0, mStartAngles, 0, size);
+    System.arraycopy(source.mEndAngles, 0, mEndAngles, 0, size);
+    mSize = size;
+    mFirstRoot = source.mFirstRoot;
+    mLastRoot = source.mLastRoot;
+
+    int rings = source.mRingCount;
+    if (mRingOffsets.length < rings + 1) {
+      mRingOffsets = new int[rings + 1];
+    }
+    if (mRingNodes.length < size) {
+      mRingNodes = new int[size];
+    }
+    System.arraycopy(source.mRingOffsets, 0, mRingOffsets, 0, rings + 1);
+    System.arraycopy(source.mRingNodes, 0, mRingNodes, 0, size);
+    mRingCount = rings;
+    mTotal = source.mTotal;
+    mLaidOut = true;
+  }
+
+  /**
+   * Compute the angles of every node and the node lists of every ring, in one depth-first
+   * walk. Call it after adding nodes and before reading angles or rings.
+   */
+  public void layout() {
+    int rings = 0;
+    for (int i = 0; i < mSize; ++i) {
+      rings = Math.max(rings, mDepths[i] + 1);
+    }
+    mRingCount = rings;
+    if (mRingOffsets.length < rings + 1) {
+      mRingOffsets = new int[rings + 1];
+    }
+    // Count the nodes of each ring and turn the counts into the start of each ring's list.
+    Arrays.fill(mRingOffsets, 0, rings + 1, 0);
+    for (int i = 0; i < mSize; ++i) {
+      mRingOffsets[mDepths[i] + 1]++;
+    }
+    for (int ring = 0; ring < rings; ++ring) {
+      mRingOffsets[ring + 1] += mRingOffsets[ring];
+    }
+    if (mRingNodes.length < mSize) {
+      mRingNodes = new int[mSize];
+    }
+
+    double sum = 0;
+    int node = mFirstRoot;
+    while (node >= 0) {
+      // Entering the node: it starts where the sum stands now.
+      mStartSums[node] = sum;
+      int depth = mDepths[node];
+      // The ring offsets are used as insertion points and are shifted back afterwards.
+      mRingNodes[mRingOffsets[depth]++] = node;
+      if (mFirstChildren[node] >= 0) {
+        node = mFirstChildren[node];
+        continue;
+      }
+      sum += mValues[node];
+      // Leave the node, and every ancestor whose last child it is, until one has a next
+      // sibling to enter.
+      while (node >= 0) {
+        mEndSums[node] = sum;
+        mValues[node] = (float) (sum - mStartSums[node]);
+        if (mNextSiblings[node] >= 0) {
+          node = mNextSiblings[node];
+          break;
+        }
+        node = mParents[node];
+      }
+    }
+    mTotal = sum;
+    for (int ring = rings; ring > 0; --ring) {
+      mRingOffsets[ring] = mRingOffsets[ring - 1];
+    }
+    mRingOffsets[0] = 0;
+
+    // Turn the sums into angles.
+    double scale = mTotal > 0 ? 360.0 / mTotal : 0;
+    for (int i = 0; i < mSize; ++i) {
+      mStartAngles[i] = (float) (mStartSums[i] * scale);
+      mEndAngles[i] = (float) (mEndSums[i] * scale);
+    }
+    mLaidOut = true;
+  }
+
+  /**
+   * Returns the number of rings, the depth of the deepest node plus one.
+   */
+  public int ringCount() {
+    checkLaidOut();
+    return mRingCount;
+  }
+
+  /**
+   * Returns the number of nodes in a ring.
+   */
+  public int ringSize(int ring) {
+    checkRing(ring);
+    return mRingOffsets[ring + 1] - mRingOffsets[ring];
+  }
+
+  /**
+   * Returns a node of a ring. The nodes of a ring are sorted by angle.
+   *
+   * @param ring  The ring, 0 for the innermost one.
+   * @param index Between 0 and {@link #ringSize(int)}.
+   * @return The index of the node.
+   */
+  public int ringNode(int ring, int index) {
+    checkRing(ring);
+    if (index < 0 || index >= ringSize(ring)) {
+      throw new IndexOutOfBoundsException("index " + index + ", size " + ringSize(ring));
+    }
+    return mRingNodes[mRingOffsets[ring] + index];
+  }
+
+  /**
+   * Find the node of a ring at an angle, by binary search over the nodes of the ring.
+   *
+   * @param ring  The ring, 0 for the innermost one.
+   * @param angle A data angle, in degrees.
+   * @return The index of the node, or -1 if no node of the ring covers the angle, which
+   *         happens under leaves of the inner rings.
+   */
+  public int nodeAt(int ring, float angle) {
+    checkRing(ring);
+    angle = PieGeometry.normalizeAngle(angle);
+    int low = mRingOffsets[ring];
+    int high = mRingOffsets[ring + 1] - 1;
+    // Find the last node that starts at or before the angle.
+    int found = -1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (mStartAngles[mRingNodes[mid]] <= angle) {
+        found = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    if (found < 0) {
+      return -1;
+    }
+    int node = mRingNodes[found];
+    return angle < mEndAngles[node] ? node : -1;
+  }
+
+  public String label(int node) {
+    checkNode(node);
+    return mLabels[node];
+  }
+
+  public int color(int node) {
+    checkNode(node);
+    return mColors[node];
+  }
+
+  public int parent(int node) {
+    checkNode(node);
+    return mParents[node];
+  }
+
+  /**
+   * Returns the ring of a node, 0 for the innermost one.
+   */
+  public int depth(int node) {
+    checkNode(node);
+    return mDepths[node];
+  }
+
+  /**
+   * Returns the value of a node: its own value for a leaf, the sum of the leaves below it
+   * otherwise. Only up to date after {@link #layout()}.
+   */
+  public float value(int node) {
+    checkNode(node);
+    return mValues[node];
+  }
+
+  public float startAngle(int node) {
+    checkNode(node);
+    checkLaidOut();
+    return mStartAngles[node];
+  }
+
+  public float endAngle(int node) {
+    checkNode(node);
+    checkLaidOut();
+    return mEndAngles[node];
+  }
+
+  public float sweepAngle(int node) {
+    return endAngle(node) - startAngle(node);
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= mLabels.length) {
+      return;
+    }
+    capacity = Math.max(capacity, mLabels.length * 2);
+    mLabels = Arrays.copyOf(mLabels, capacity);
+    mValues = Arrays.copyOf(mValues, capacity);
+    mColors = Arrays.copyOf(mColors, capacity);
+    mParents = Arrays.copyOf(mParents, capacity);
+    mDepths = Arrays.copyOf(mDepths, capacity);
+    mFirstChildren = Arrays.copyOf(mFirstChildren, capacity);
+    mLastChildren = Arrays.copyOf(mLastChildren, capacity);
+    mNextSiblings = Arrays.copyOf(mNextSiblings, capacity);
+    mStartSums = new double[capacity];
+    mEndSums = new double[capacity];
+    mStartAngles = new float[capacity];
+    mEndAngles = new float[capacity];
+  }
+
+  private void checkNode(int node) {
+    if (node < 0 || node >= mSize) {
+      throw new IndexOutOfBoundsException("node " + node + ", size " + mSize);
+    }
+  }
+
+  private void checkRing(int ring) {
+    checkLaidOut();
+    if (ring < 0 || ring >= mRingCount) {
+      throw new IndexOutOfBoundsException("ring " + ring + ", rings " + mRingCount);
+    }
+  }
+
+  private void checkLaidOut() {
+    if (!mLaidOut) {
+      throw new IllegalStateException("layout() must be called after the tree changes");
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package com.arachi.nkoroi.piegeometry;
+
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link FenwickTree}.
+ */
+public class FenwickTreeTest {
+  @Test public void pushAndAdd_matchNaivePrefixSums() throws Exception {
+    Random random = new Random(3);
+    FenwickTree tree = new FenwickTree(1);
+    double[] values = new double[1000];
+    for (int i = 0; i < values.length; ++i) {
+      values[i] = random.nextInt(100);
+      tree.push(values[i]);
+    }
+    for (int step = 0; step < 500; ++step) {
+      int index = random.nextInt(values.length);
+      double delta = random.nextInt(21) - 10;
+      values[index] += delta;
+      tree.add(index, delta);
+    }
+
+    double sum = 0;
+    assertEquals(0.0, tree.prefixSum(0), 0.0);
+    for (int i = 0; i < values.length; ++i) {
+      sum += values[i];
+      assertEquals("prefix " + (i + 1), sum, tree.prefixSum(i + 1), 1e-9);
+    }
+  }
+
+  @Test public void build_matchesPush() throws Exception {
+    float[] values = new float[37];
+    FenwickTree pushed = new FenwickTree();
+    for (int i = 0; i < values.length; ++i) {
+      values[i] = i % 5;
+      pushed.push(values[i]);
+    }
+    FenwickTree built = new FenwickTree();
+    built.push(1000);
+    built.build(values, values.length);
+
+    assertEquals(values.length, built.size());
+    for (int count = 0; count <= values.length; ++count) {
+      assertEquals(pushed.prefixSum(count), built.prefixSum(count), 0.0);
+    }
+  }
+
+  @Test public void lastCountBelow_findsBoundary() throws Exception {
+    FenwickTree tree = new FenwickTree();
+    tree.push(1);
+    tree.push(0);
+    tree.push(2);
+    tree.push(3);
+    // Prefix sums: 0, 1, 1, 3, 6.
+    assertEquals(0, tree.lastCountBelow(0));
+    assertEquals(0, tree.lastCountBelow(1));
+    assertEquals(2, tree.lastCountBelow(1.5));
+    assertEquals(2, tree.lastCountBelow(3));
+    assertEquals(3, tree.lastCountBelow(6));
+    assertEquals(4, tree.lastCountBelow(7));
+  }
+
+  @Test public void clear_empties() throws Exception {
+    FenwickTree tree = new FenwickTree();
+    for (int i = 0; i < 20; ++i) {
+      tree.push(1);
+    }
+    tree.clear();
+    tree.push(2);
+    assertEquals(1, tree.size());
+    assertEquals(2.0, tree.prefixSum(1), 0.0);
+  }
+}
@@ -0,0 +1,79 @@
+package com.arachi.nkoroi.piegeometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link FlingEngine}.
+ */
+public class FlingEngineTest {
+  private static final long FRAME = 16666667L;
+
+  @Test public void fling_slowsDownAndStopsNearRestingAngle() throws Exception {
+    FlingEngine fling = new FlingEngine();
+    fling.start(10, 300, 0);
+    float rest = fling.getRestingAngle();
+    assertEquals(10 + 300 / FlingEngine.DEFAULT_FRICTION, rest, 1e-3f);
+
+    float previousVelocity = fling.getVelocity();
+    long time = 0;
+    while (fling.step(time += FRAME)) {
+      assertTrue(fling.getVelocity() < previousVelocity);
+      previousVelocity = fling.getVelocity();
+    }
+    assertFalse(fling.isRunning());
+    assertEquals(rest, fling.getAngle(),
+        FlingEngine.DEFAULT_STOP_VELOCITY / FlingEngine.DEFAULT_FRICTION);
+  }
+
+  @Test public void fling_doesNotDependOnFrameRate() throws Exception {
+    FlingEngine smooth = new FlingEngine();
+    FlingEngine janky = new FlingEngine();
+    smooth.start(0, -500, 0);
+    janky.start(0, -500, 0);
+    for (int i = 1; i <= 30; ++i) {
+      smooth.step(i * FRAME);
+      if (i % 5 == 0) {
+        janky.step(i * FRAME);
+      }
+    }
+    assertEquals(smooth.getAngle(), janky.getAngle(), 1e-2f);
+    assertEquals(smooth.getVelocity(), janky.getVelocity(), 1e-2f);
+  }
+
+  @Test public void setTarget_comesToRestExactlyOnTarget() throws Exception {
+    FlingEngine fling = new FlingEngine();
+    fling.start(0, 600, 0);
+    fling.setTarget(205);
+    assertEquals(205, fling.getRestingAngle(), 0.0f);
+    long time = 0;
+    while (fling.step(time += FRAME)) {
+      assertTrue(fling.getAngle() < 205);
+    }
+    assertEquals(205, fling.getAngle(), 0.0f);
+  }
+
+  @Test public void slowFling_doesNotStart() throws Exception {
+    FlingEngine fling = new FlingEngine();
+    fling.start(42, FlingEngine.DEFAULT_STOP_VELOCITY / 2, 0);
+    assertFalse(fling.isRunning());
+    assertFalse(fling.step(FRAME));
+    assertEquals(42, fling.getAngle(), 0.0f);
+  }
+
+  @Test public void stop_keepsAngle() throws Exception {
+    FlingEngine fling = new FlingEngine();
+    fling.start(0, 300, 0);
+    fling.step(FRAME);
+    float angle = fling.getAngle();
+    fling.stop();
+    assertFalse(fling.step(2 * FRAME));
+    assertEquals(angle, fling.getAngle(), 0.0f);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void setFriction_rejectsZero() throws Exception {
+    new FlingEngine().setFriction(0);
+  }
+}
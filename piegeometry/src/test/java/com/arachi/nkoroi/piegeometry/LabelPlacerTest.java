@@ -0,0 +1,106 @@
+package com.arachi.nkoroi.piegeometry;
+
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link LabelPlacer}.
+ */
+public class LabelPlacerTest {
+  private static final float LABEL_HEIGHT = 20;
+  private static final float SPACING = 4;
+
+  private static LabelPlacer newPlacer(float maxShift) {
+    LabelPlacer placer = new LabelPlacer();
+    placer.setPie(200, 200, 100);
+    placer.setLabelSize(LABEL_HEIGHT, SPACING, 10);
+    placer.setBounds(0, 400, maxShift);
+    return placer;
+  }
+
+  @Test public void place_keepsSeparatedLabelsBesideTheirSlices() throws Exception {
+    LabelPlacer placer = newPlacer(50);
+    placer.place(new float[]{0, 90, 180, 270}, 4);
+
+    assertEquals(4, placer.visibleCount());
+    assertFalse(placer.isOnLeft(0));
+    assertTrue(placer.isOnLeft(2));
+    // The slice at 0 degrees points right, at the height of the pie center.
+    assertEquals(300, placer.anchorX(0), 1e-3f);
+    assertEquals(200, placer.anchorY(0), 1e-3f);
+    assertEquals(310, placer.elbowX(0), 1e-3f);
+    assertEquals(310, placer.labelX(0), 1e-3f);
+    assertEquals(200, placer.labelY(0), 1e-3f);
+    assertEquals(90, placer.labelX(2), 1e-3f);
+    // The slice at 90 degrees points up.
+    assertEquals(100, placer.anchorY(1), 1e-3f);
+    assertEquals(90, placer.labelY(1), 1e-3f);
+  }
+
+  @Test public void place_pushesCrowdedLabelsApartAndHidesTheRest() throws Exception {
+    LabelPlacer placer = newPlacer(2 * (LABEL_HEIGHT + SPACING));
+    float[] angles = new float[10];
+    for (int i = 0; i < angles.length; ++i) {
+      angles[i] = 10 - i;
+    }
+    placer.place(angles, angles.length);
+
+    // Only the first label and the two pushed below it are within the shift.
+    assertEquals(3, placer.visibleCount());
+    assertTrue(placer.isVisible(0));
+    assertTrue(placer.isVisible(2));
+    assertFalse(placer.isVisible(3));
+    assertEquals(LABEL_HEIGHT + SPACING, placer.labelY(1) - placer.labelY(0), 1e-3f);
+  }
+
+  @Test public void place_neverOverlapsOrLeavesTheBounds() throws Exception {
+    Random random = new Random(42);
+    LabelPlacer placer = newPlacer(60);
+    float[] angles = new float[500];
+    for (int i = 0; i < angles.length; ++i) {
+      angles[i] = random.nextFloat() * 360;
+    }
+    placer.place(angles, angles.length);
+
+    assertTrue(placer.visibleCount() > 0);
+    for (int i = 0; i < angles.length; ++i) {
+      if (!placer.isVisible(i)) {
+        continue;
+      }
+      assertTrue(placer.labelY(i) - LABEL_HEIGHT / 2 >= 0);
+      assertTrue(placer.labelY(i) + LABEL_HEIGHT / 2 <= 400);
+      for (int j = i + 1; j < angles.length; ++j) {
+        if (placer.isVisible(j) && placer.isOnLeft(j) == placer.isOnLeft(i)) {
+          assertTrue(Math.abs(placer.labelY(i) - placer.labelY(j))
+              >= LABEL_HEIGHT + SPACING - 1e-3f);
+        }
+      }
+    }
+  }
+
+  @Test public void place_pullsLabelsInsideTheBounds() throws Exception {
+    LabelPlacer placer = new LabelPlacer();
+    placer.setPie(200, 110, 100);
+    placer.setLabelSize(LABEL_HEIGHT, SPACING, 10);
+    placer.setBounds(0, 220, 0);
+    placer.place(new float[]{80, 280}, 2);
+
+    assertEquals(2, placer.visibleCount());
+    assertEquals(LABEL_HEIGHT / 2, placer.labelY(0), 1e-3f);
+    assertEquals(220 - LABEL_HEIGHT / 2, placer.labelY(1), 1e-3f);
+  }
+
+  @Test public void place_reusesBuffersForFewerLabels() throws Exception {
+    LabelPlacer placer = newPlacer(50);
+    placer.place(new float[20], 20);
+    placer.place(new float[]{0}, 1);
+    assertEquals(1, placer.size());
+    try {
+      placer.labelY(1);
+      fail();
+    } catch (IndexOutOfBoundsException expected) {
+    }
+  }
+}
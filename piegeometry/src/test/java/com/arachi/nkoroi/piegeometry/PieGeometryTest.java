@@ -0,0 +1,48 @@
+package com.arachi.nkoroi.piegeometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link PieGeometry}.
+ */
+public class PieGeometryTest {
+  @Test public void normalizeAngle_wrapsIntoRange() throws Exception {
+    assertEquals(0.0f, PieGeometry.normalizeAngle(0), 0.0f);
+    assertEquals(0.0f, PieGeometry.normalizeAngle(360), 0.0f);
+    assertEquals(10.5f, PieGeometry.normalizeAngle(370.5f), 0.0f);
+    assertEquals(350.0f, PieGeometry.normalizeAngle(-10), 0.0f);
+    assertEquals(350.0f, PieGeometry.normalizeAngle(-730), 0.0f);
+    float tiny = PieGeometry.normalizeAngle(-0.00001f);
+    assertTrue(tiny >= 0 && tiny < 360);
+  }
+
+  @Test public void pieAngle_addsRotation() throws Exception {
+    assertEquals(135.0f, PieGeometry.pieAngle(135, 0), 0.0f);
+    assertEquals(45.0f, PieGeometry.pieAngle(135, 270), 0.0f);
+  }
+
+  @Test public void screenAngle_isCounterclockwiseWithYDown() throws Exception {
+    assertEquals(0.0f, PieGeometry.screenAngle(10, 0), 1e-4f);
+    assertEquals(90.0f, PieGeometry.screenAngle(0, -10), 1e-4f);
+    assertEquals(180.0f, PieGeometry.screenAngle(-10, 0), 1e-4f);
+    assertEquals(270.0f, PieGeometry.screenAngle(0, 10), 1e-4f);
+    assertEquals(135.0f, PieGeometry.screenAngle(-5, -5), 1e-4f);
+  }
+
+  @Test public void pointerAngle_followsLabelSide() throws Exception {
+    assertEquals(135.0f, PieGeometry.pointerAngle(true, 10), 0.0f);
+    assertEquals(225.0f, PieGeometry.pointerAngle(true, -10), 0.0f);
+    assertEquals(45.0f, PieGeometry.pointerAngle(false, 10), 0.0f);
+    assertEquals(315.0f, PieGeometry.pointerAngle(false, -10), 0.0f);
+  }
+
+  @Test public void vectorToScalarScroll_signFollowsDirection() throws Exception {
+    // Touching to the right of the center and moving down turns the pie clockwise on
+    // screen, which is positive in screen coordinates.
+    assertEquals(5.0f, PieGeometry.vectorToScalarScroll(3, 4, 10, 0), 1e-6f);
+    assertEquals(-5.0f, PieGeometry.vectorToScalarScroll(-3, -4, 10, 0), 1e-6f);
+    assertEquals(0.0f, PieGeometry.vectorToScalarScroll(10, 0, 10, 0), 0.0f);
+  }
+}
@@ -0,0 +1,78 @@
+package com.arachi.nkoroi.piegeometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link SliceAggregator}.
+ */
+public class SliceAggregatorTest {
+  private static SliceStore store(float... values) {
+    SliceStore store = new SliceStore();
+    for (int i = 0; i < values.length; ++i) {
+      store.add("Item " + i, values[i], i, i);
+    }
+    store.layout();
+    return store;
+  }
+
+  @Test public void aggregate_foldsThinSlices() throws Exception {
+    // Items 1 and 3 are 3.6 degrees wide, the others 90 or more.
+    SliceStore source = store(25, 1, 48, 1, 25);
+    SliceStore display = new SliceStore();
+    SliceAggregator aggregator = new SliceAggregator();
+    aggregator.aggregate(source, 5, "Other", 100, 101, display);
+
+    assertEquals(4, display.size());
+    assertEquals("Item 0", display.label(0));
+    assertEquals("Item 2", display.label(1));
+    assertEquals("Item 4", display.label(2));
+    assertEquals("Other", display.label(3));
+    assertEquals(2.0f, display.value(3), 0.0f);
+    assertEquals(100, display.color(3));
+    assertEquals(360.0f, display.endAngle(3), 0.0f);
+
+    assertEquals(0, aggregator.sourceIndex(0));
+    assertEquals(2, aggregator.sourceIndex(1));
+    assertEquals(4, aggregator.sourceIndex(2));
+    assertEquals(-1, aggregator.sourceIndex(3));
+    assertEquals(3, aggregator.otherIndex());
+    assertEquals(2, aggregator.memberCount());
+    assertEquals(1, aggregator.member(0));
+    assertEquals(3, aggregator.member(1));
+  }
+
+  @Test public void aggregate_keepsSingleThinSlice() throws Exception {
+    SliceStore source = store(1, 99);
+    SliceStore display = new SliceStore();
+    SliceAggregator aggregator = new SliceAggregator();
+    aggregator.aggregate(source, 5, "Other", 0, 0, display);
+
+    assertEquals(2, display.size());
+    assertEquals(-1, aggregator.otherIndex());
+    assertEquals(0, aggregator.memberCount());
+    assertEquals(0, aggregator.sourceIndex(0));
+  }
+
+  @Test public void aggregate_scalesWithVisibleSlices() throws Exception {
+    float[] values = new float[10000];
+    for (int i = 0; i < values.length; ++i) {
+      values[i] = i < 4 ? 10000 : 1;
+    }
+    SliceStore display = new SliceStore();
+    SliceAggregator aggregator = new SliceAggregator();
+    aggregator.aggregate(store(values), 1, "Other", 0, 0, display);
+
+    assertEquals(5, display.size());
+    assertEquals(values.length - 4, aggregator.memberCount());
+    assertEquals(values.length - 1, aggregator.member(aggregator.memberCount() - 1));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void member_checksIndex() throws Exception {
+    SliceAggregator aggregator = new SliceAggregator();
+    aggregator.aggregate(store(1, 1), 5, "Other", 0, 0, new SliceStore());
+    aggregator.member(0);
+  }
+}
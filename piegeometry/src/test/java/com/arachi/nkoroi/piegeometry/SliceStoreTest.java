@@ -0,0 +1,360 @@
+package com.arachi.nkoroi.piegeometry;
+
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link SliceStore}.
+ */
+public class SliceStoreTest {
+  @Test public void layout_splitsCircleByValue() throws Exception {
+    SliceStore store = new SliceStore();
+    store.add("a", 1, 0xff0000ff, 0xff0000ff);
+    store.add("b", 1, 0xff00ff00, 0xff00ff00);
+    store.add("c", 2, 0xffff0000, 0xffff0000);
+    store.layout();
+
+    assertEquals(3, store.size());
+    assertEquals(4.0f, store.total(), 0.0f);
+    assertEquals(0.0f, store.startAngle(0), 0.0f);
+    assertEquals(90.0f, store.sweepAngle(0), 0.0f);
+    assertEquals(90.0f, store.startAngle(1), 0.0f);
+    assertEquals(180.0f, store.startAngle(2), 0.0f);
+    assertEquals(360.0f, store.endAngle(2), 0.0f);
+  }
+
+  @Test public void indexOfAngle_findsCoveringItem() throws Exception {
+    SliceStore store = new SliceStore();
+    store.add("a", 1, 0, 0);
+    store.add("b", 1, 0, 0);
+    store.add("c", 2, 0, 0);
+    store.layout();
+
+    assertEquals(0, store.indexOfAngle(0));
+    assertEquals(0, store.indexOfAngle(45));
+    assertEquals(0, store.indexOfAngle(90));
+    assertEquals(1, store.indexOfAngle(90.5f));
+    assertEquals(2, store.indexOfAngle(270));
+    assertEquals(2, store.indexOfAngle(360));
+    assertEquals(-1, store.indexOfAngle(361));
+  }
+
+  @Test public void indexOfAngle_matchesLinearScan() throws Exception {
+    SliceStore store = new SliceStore();
+    Random random = new Random(42);
+    for (int i = 0; i < 500; ++i) {
+      store.add("item", random.nextInt(20), 0, 0);
+    }
+    store.layout();
+
+    for (int angle = 0; angle <= 360; ++angle) {
+      int expected = -1;
+      for (int i = 0; i < store.size(); ++i) {
+        if (store.startAngle(i) <= angle && angle <= store.endAngle(i)) {
+          expected = i;
+          break;
+        }
+      }
+      assertEquals("angle " + angle, expected, store.indexOfAngle(angle));
+    }
+  }
+
+  @Test public void indexOfAngle_emptyStore() throws Exception {
+    assertEquals(-1, new SliceStore().indexOfAngle(0));
+  }
+
+  @Test public void layout_manySmallSlicesCloseTheCircle() throws Exception {
+    SliceStore store = new SliceStore();
+    store.add("big", 1000000, 0, 0);
+    for (int i = 0; i < 999; ++i) {
+      store.add("tiny", 1, 0, 0);
+    }
+    store.layout();
+
+    assertEquals(360.0f, store.endAngle(store.size() - 1), 0.0f);
+    for (int i = 1; i < store.size(); ++i) {
+      assertTrue("slice " + i + " vanished", store.sweepAngle(i) > 0);
+    }
+  }
+
+  @Test public void layout_zeroTotal() throws Exception {
+    SliceStore store = new SliceStore();
+    store.add("a", 0, 0, 0);
+    store.add("b", 0, 0, 0);
+    store.layout();
+
+    assertEquals(0.0f, store.endAngle(1), 0.0f);
+    assertEquals(0.0f, store.sweepAngle(0), 0.0f);
+  }
+
+  /**
+   * Checks the angle model over random data sets: the slices tile the circle exactly,
+   * every sweep is proportional to its value, no slice with a value vanishes, and the
+   * middle of every slice maps back to that slice.
+   */
+  @Test public void layout_randomDataSets() throws Exception {
+    Random random = new Random(7);
+    for (int run = 0; run < 200; ++run) {
+      SliceStore store = new SliceStore();
+      int count = 1 + random.nextInt(run < 100 ? 20 : 2000);
+      double total = 0;
+      for (int i = 0; i < count; ++i) {
+        float value;
+        switch (random.nextInt(4)) {
+          case 0: value = 0; break;
+          case 1: value = random.nextFloat() * 1e-3f; break;
+          case 2: value = random.nextFloat() * 1e6f; break;
+          default: value = random.nextInt(100); break;
+        }
+        store.add("item", value, 0, 0);
+        total += value;
+      }
+      store.layout();
+      if (total == 0) {
+        continue;
+      }
+
+      assertEquals(0.0f, store.startAngle(0), 0.0f);
+      assertEquals(360.0f, store.endAngle(count - 1), 0.0f);
+      for (int i = 0; i < count; ++i) {
+        if (i > 0) {
+          assertEquals(store.endAngle(i - 1), store.startAngle(i), 0.0f);
+        }
+        double expected = store.value(i) * 360.0 / total;
+        assertEquals("sweep of " + i, expected, store.sweepAngle(i), 1e-3);
+        if (store.value(i) > 0) {
+          assertTrue("slice " + i + " vanished", store.sweepAngle(i) > 0);
+        }
+        float start = store.startAngle(i);
+        float end = store.endAngle(i);
+        float middle = start + (end - start) / 2;
+        if (start < middle && middle < end) {
+          assertEquals(i, store.indexOfAngle(middle));
+        }
+      }
+    }
+  }
+
+  @Test public void setValue_shiftsLaterSlices() throws Exception {
+    SliceStore store = new SliceStore();
+    store.add("a", 1, 0, 0);
+    store.add("b", 1, 0, 0);
+    store.add("c", 2, 0, 0);
+    store.setValue(1, 5);
+
+    assertEquals(8.0f, store.total(), 0.0f);
+    assertEquals(45.0f, store.endAngle(0), 1e-4f);
+    assertEquals(270.0f, store.endAngle(1), 1e-4f);
+    assertEquals(360.0f, store.endAngle(2), 0.0f);
+  }
+
+  @Test public void remove_closesGap() throws Exception {
+    SliceStore store = new SliceStore();
+    store.add("a", 1, 1, 0);
+    store.add("b", 2, 2, 0);
+    store.add("c", 1, 3, 0);
+    store.remove(1);
+
+    assertEquals(2, store.size());
+    assertEquals("c", store.label(1));
+    assertEquals(3, store.color(1));
+    assertEquals(180.0f, store.startAngle(1), 1e-4f);
+    assertEquals(360.0f, store.endAngle(1), 0.0f);
+  }
+
+  @Test public void move_reordersItems() throws Exception {
+    SliceStore store = new SliceStore();
+    store.add("a", 1, 0, 0);
+    store.add("b", 2, 0, 0);
+    store.add("c", 3, 0, 0);
+    store.move(0, 2);
+
+    assertEquals("b", store.label(0));
+    assertEquals("c", store.label(1));
+    assertEquals("a", store.label(2));
+    assertEquals(120.0f, store.endAngle(0), 1e-4f);
+    assertEquals(300.0f, store.endAngle(1), 1e-4f);
+
+    store.move(2, 0);
+    assertEquals("a", store.label(0));
+    assertEquals(60.0f, store.endAngle(0), 1e-4f);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void remove_outOfRange() throws Exception {
+    SliceStore store = new SliceStore();
+    store.add("a", 1, 0, 0);
+    store.remove(1);
+  }
+
+  /**
+   * Applies random updates, removals and moves and checks that the incrementally
+   * maintained angles match a store built from scratch with the same items.
+   */
+  @Test public void incrementalChanges_matchRebuild() throws Exception {
+    Random random = new Random(11);
+    SliceStore store = new SliceStore();
+    for (int i = 0; i < 300; ++i) {
+      store.add("item" + i, random.nextInt(50), i, i);
+    }
+    for (int step = 0; step < 2000; ++step) {
+      int index = random.nextInt(store.size());
+      switch (random.nextInt(4)) {
+        case 0:
+          store.remove(index);
+          break;
+        case 1:
+          store.move(index, random.nextInt(store.size()));
+          break;
+        case 2:
+          store.add("added" + step, random.nextInt(50), step, step);
+          break;
+        default:
+          store.setValue(index, random.nextFloat() * 100);
+          break;
+      }
+
+      if (step % 100 == 0) {
+        SliceStore rebuilt = new SliceStore();
+        for (int i = 0; i < store.size(); ++i) {
+          rebuilt.add(store.label(i), store.value(i), store.color(i), store.highlight(i));
+        }
+        for (int i = 0; i < store.size(); ++i) {
+          assertEquals(rebuilt.startAngle(i), store.startAngle(i), 1e-3f);
+          assertEquals(rebuilt.endAngle(i), store.endAngle(i), 1e-3f);
+        }
+        assertEquals(360.0f, store.endAngle(store.size() - 1), 0.0f);
+      }
+    }
+  }
+
+  /**
+   * Reads angles and hit tests out of order right after value changes, while the
+   * running sum is only partly up to date.
+   */
+  @Test public void staleAngles_matchRebuild() throws Exception {
+    Random random = new Random(5);
+    SliceStore store = new SliceStore();
+    for (int i = 0; i < 1000; ++i) {
+      store.add("item", 1 + random.nextInt(50), 0, 0);
+    }
+    store.layout();
+    for (int step = 0; step < 50; ++step) {
+      store.setValue(random.nextInt(store.size()), random.nextInt(50));
+
+      SliceStore rebuilt = new SliceStore();
+      for (int i = 0; i < store.size(); ++i) {
+        rebuilt.add("item", store.value(i), 0, 0);
+      }
+      rebuilt.layout();
+      for (int probe = 0; probe < 20; ++probe) {
+        int i = random.nextInt(store.size());
+        assertEquals(rebuilt.endAngle(i), store.endAngle(i), 1e-3f);
+        float angle = random.nextFloat() * 360;
+        int hit = store.indexOfAngle(angle);
+        assertTrue(store.startAngle(hit) <= angle && angle <= store.endAngle(hit));
+      }
+    }
+  }
+
+  /**
+   * A value change must not cost more on a store ten times as large, give or take the
+   * logarithm. Shifting the later items would make it ten times as slow.
+   */
+  @Test public void setValue_doesNotScaleWithSize() throws Exception {
+    SliceStore small = new SliceStore();
+    SliceStore large = new SliceStore();
+    load(small, 20000);
+    load(large, 200000);
+    // warm up
+    for (int i = 0; i < 5; ++i) {
+      updateFront(small);
+      updateFront(large);
+    }
+
+    long smallNanos = Long.MAX_VALUE;
+    long largeNanos = Long.MAX_VALUE;
+    for (int i = 0; i < 7; ++i) {
+      smallNanos = Math.min(smallNanos, updateFront(small));
+      largeNanos = Math.min(largeNanos, updateFront(large));
+    }
+    assertTrue("updates took " + largeNanos + "ns on the large store vs "
+            + smallNanos + "ns on the small one",
+        largeNanos < Math.max(smallNanos, 1) * 5);
+  }
+
+  private static long updateFront(SliceStore store) {
+    long start = System.nanoTime();
+    for (int i = 0; i < 10000; ++i) {
+      store.setValue(i % 16, i % 7 + 1);
+    }
+    return System.nanoTime() - start;
+  }
+
+  @Test public void add_growsAndKeepsItems() throws Exception {
+    SliceStore store = new SliceStore(1);
+    for (int i = 0; i < 100; ++i) {
+      assertEquals(i, store.add("item" + i, i, i, -i));
+    }
+    assertTrue(store.capacity() >= 100);
+    for (int i = 0; i < 100; ++i) {
+      assertEquals("item" + i, store.label(i));
+      assertEquals(i, store.value(i), 0.0f);
+      assertEquals(i, store.color(i));
+      assertEquals(-i, store.highlight(i));
+    }
+  }
+
+  @Test public void clear_keepsCapacity() throws Exception {
+    SliceStore store = new SliceStore();
+    for (int i = 0; i < 50; ++i) {
+      store.add("item", 1, 0, 0);
+    }
+    int capacity = store.capacity();
+    store.clear();
+
+    assertEquals(0, store.size());
+    assertEquals(0.0f, store.total(), 0.0f);
+    assertEquals(capacity, store.capacity());
+  }
+
+  /**
+   * Loading ten times as many items must take roughly ten times as long. A quadratic
+   * load would take a hundred times as long; the bound leaves room for timer noise.
+   */
+  @Test public void bulkLoad_scalesLinearly() throws Exception {
+    int small = 20000;
+    int large = small * 10;
+    SliceStore store = new SliceStore();
+    // warm up
+    for (int i = 0; i < 5; ++i) {
+      load(store, large);
+    }
+
+    long smallNanos = bestOf(store, small);
+    long largeNanos = bestOf(store, large);
+    assertTrue("load of " + large + " items took " + largeNanos + "ns vs "
+            + smallNanos + "ns for " + small,
+        largeNanos < Math.max(smallNanos, 1) * 40);
+  }
+
+  private static long bestOf(SliceStore store, int count) {
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < 7; ++i) {
+      long start = System.nanoTime();
+      load(store, count);
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return best;
+  }
+
+  private static void load(SliceStore store, int count) {
+    store.clear();
+    for (int i = 0; i < count; ++i) {
+      store.add("item", (i % 7) + 1, i, i);
+    }
+    store.layout();
+  }
+}
@@ -0,0 +1,132 @@
+package com.arachi.nkoroi.piegeometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link SliceTransition}.
+ */
+public class SliceTransitionTest {
+  private static SliceStore store(String[] labels, float[] values) {
+    SliceStore store = new SliceStore();
+    for (int i = 0; i < labels.length; ++i) {
+      store.add(labels[i], values[i], i, i);
+    }
+    store.layout();
+    return store;
+  }
+
+  @Test public void snapTo_copiesAngles() throws Exception {
+    SliceStore store = store(new String[]{"a", "b"}, new float[]{1, 3});
+    SliceTransition transition = new SliceTransition();
+    transition.snapTo(store);
+    assertEquals(2, transition.size());
+    assertEquals(0.0f, transition.startAngle(0), 0.0f);
+    assertEquals(90.0f, transition.endAngle(0), 0.0f);
+    assertEquals(360.0f, transition.endAngle(1), 0.0f);
+  }
+
+  @Test public void retarget_interpolatesMatchedSlices() throws Exception {
+    SliceTransition transition = new SliceTransition();
+    transition.snapTo(store(new String[]{"a", "b"}, new float[]{1, 3}));
+    transition.retarget(store(new String[]{"a", "b"}, new float[]{3, 1}));
+
+    assertEquals(90.0f, transition.sweepAngle(0), 1e-4f);
+    transition.setFraction(0.5f);
+    assertEquals(180.0f, transition.sweepAngle(0), 1e-4f);
+    assertEquals(180.0f, transition.startAngle(1), 1e-4f);
+    transition.setFraction(1);
+    assertEquals(270.0f, transition.sweepAngle(0), 1e-4f);
+    assertEquals(360.0f, transition.endAngle(1), 1e-4f);
+  }
+
+  @Test public void retarget_growsNewAndShrinksRemovedSlices() throws Exception {
+    SliceTransition transition = new SliceTransition();
+    transition.snapTo(store(new String[]{"a", "b"}, new float[]{1, 1}));
+    transition.retarget(store(new String[]{"a", "c"}, new float[]{1, 1}));
+
+    // c grows, b is kept after the new slices until the transition ends.
+    assertEquals(3, transition.size());
+    assertEquals("c", transition.label(1));
+    assertEquals(0.0f, transition.sweepAngle(1), 0.0f);
+    assertEquals(270.0f, transition.startAngle(1), 1e-4f);
+    assertEquals("b", transition.label(2));
+    assertEquals(180.0f, transition.sweepAngle(2), 1e-4f);
+
+    transition.setFraction(1);
+    assertEquals(180.0f, transition.sweepAngle(1), 1e-4f);
+    assertEquals(0.0f, transition.sweepAngle(2), 1e-4f);
+    assertEquals(270.0f, transition.startAngle(2), 1e-4f);
+
+    transition.finish();
+    assertEquals(2, transition.size());
+    assertEquals("c", transition.label(1));
+  }
+
+  @Test public void retarget_startsFromInterpolatedAngles() throws Exception {
+    SliceTransition transition = new SliceTransition();
+    transition.snapTo(store(new String[]{"a", "b"}, new float[]{1, 3}));
+    transition.retarget(store(new String[]{"a", "b"}, new float[]{3, 1}));
+    transition.setFraction(0.5f);
+    // Interrupting the transition continues from what is on screen.
+    transition.retarget(store(new String[]{"a", "b"}, new float[]{1, 1}));
+    assertEquals(180.0f, transition.sweepAngle(0), 1e-4f);
+    transition.setFraction(1);
+    assertEquals(180.0f, transition.sweepAngle(0), 1e-4f);
+  }
+
+  @Test public void retarget_matchesDuplicateLabelsInOrder() throws Exception {
+    SliceTransition transition = new SliceTransition();
+    transition.snapTo(store(new String[]{"x", "y", "x"}, new float[]{1, 1, 2}));
+    transition.retarget(store(new String[]{"x", "x", "x"}, new float[]{1, 1, 2}));
+
+    // The first two x slices take over the old ones, the third one grows and y shrinks.
+    assertEquals(4, transition.size());
+    assertEquals("y", transition.label(3));
+    assertEquals(90.0f, transition.sweepAngle(0), 1e-4f);
+    assertEquals(180.0f, transition.startAngle(1), 1e-4f);
+    assertEquals(180.0f, transition.sweepAngle(1), 1e-4f);
+    assertEquals(0.0f, transition.sweepAngle(2), 0.0f);
+    transition.setFraction(1);
+    assertEquals(90.0f, transition.startAngle(1), 1e-4f);
+    assertEquals(90.0f, transition.sweepAngle(1), 1e-4f);
+    transition.finish();
+    assertEquals(3, transition.size());
+  }
+
+  @Test public void retarget_reusesBuffersAcrossSizes() throws Exception {
+    String[] labels = new String[300];
+    float[] values = new float[300];
+    for (int i = 0; i < labels.length; ++i) {
+      labels[i] = "s" + (i % 100);
+      values[i] = 1;
+    }
+    SliceTransition transition = new SliceTransition();
+    transition.snapTo(store(new String[]{"s0"}, new float[]{1}));
+    transition.retarget(store(labels, values));
+    transition.finish();
+    assertEquals(300, transition.size());
+    assertEquals(1.2f, transition.sweepAngle(299), 1e-4f);
+
+    // Every slice of the smaller set is matched, the rest shrink away.
+    transition.retarget(store(new String[]{"s1", "s0"}, new float[]{1, 1}));
+    assertEquals(300, transition.size());
+    assertEquals(1.2f, transition.startAngle(0), 1e-4f);
+    assertEquals(0.0f, transition.startAngle(1), 1e-4f);
+    transition.finish();
+    assertEquals(2, transition.size());
+    assertEquals("s0", transition.label(1));
+    assertEquals(180.0f, transition.startAngle(1), 1e-4f);
+  }
+
+  @Test public void finish_withoutRetarget_keepsSlices() throws Exception {
+    SliceTransition transition = new SliceTransition();
+    transition.snapTo(store(new String[]{"a", "b", "c"}, new float[]{1, 1, 1}));
+    transition.finish();
+    assertEquals(3, transition.size());
+    assertEquals(120.0f, transition.sweepAngle(2), 1e-4f);
+    transition.reset();
+    assertEquals(0, transition.size());
+  }
+}
@@ -0,0 +1,148 @@
+package com.arachi.nkoroi.piegeometry;
+
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link SunburstTree}.
+ */
+public class SunburstTreeTest {
+
+  /**
+   * Two regions: "North" with teams "A" (1 + 1 from its services) and "B" (2), and
+   * "South" (4) with no teams.
+   */
+  private static SunburstTree newTree() {
+    SunburstTree tree = new SunburstTree();
+    int north = tree.add(SunburstTree.ROOT, "North", 100, 0xff000001);
+    int south = tree.add(SunburstTree.ROOT, "South", 4, 0xff000002);
+    int a = tree.add(north, "A", 100, 0xff000003);
+    tree.add(north, "B", 2, 0xff000004);
+    tree.add(a, "A1", 1, 0xff000005);
+    tree.add(a, "A2", 1, 0xff000006);
+    assertEquals(1, south);
+    tree.layout();
+    return tree;
+  }
+
+  @Test public void layout_nestsChildrenUnderTheirParents() throws Exception {
+    SunburstTree tree = newTree();
+    assertEquals(3, tree.ringCount());
+
+    // North holds half of the total of 8, since only leaf values count.
+    assertEquals(4, tree.value(0), 0);
+    assertEquals(0, tree.startAngle(0), 1e-4f);
+    assertEquals(180, tree.endAngle(0), 1e-4f);
+    assertEquals(180, tree.startAngle(1), 1e-4f);
+    assertEquals(360, tree.endAngle(1), 1e-4f);
+
+    // A and B share out North; A1 and A2 share out A.
+    assertEquals(0, tree.startAngle(2), 1e-4f);
+    assertEquals(90, tree.endAngle(2), 1e-4f);
+    assertEquals(90, tree.startAngle(3), 1e-4f);
+    assertEquals(180, tree.endAngle(3), 1e-4f);
+    assertEquals(45, tree.sweepAngle(4), 1e-4f);
+    assertEquals(45, tree.startAngle(5), 1e-4f);
+  }
+
+  @Test public void layout_listsEachRingInAngleOrder() throws Exception {
+    SunburstTree tree = newTree();
+    assertEquals(2, tree.ringSize(0));
+    assertEquals(2, tree.ringSize(1));
+    assertEquals(2, tree.ringSize(2));
+    assertEquals(0, tree.ringNode(0, 0));
+    assertEquals(1, tree.ringNode(0, 1));
+    assertEquals(2, tree.ringNode(1, 0));
+    assertEquals(3, tree.ringNode(1, 1));
+    assertEquals(4, tree.ringNode(2, 0));
+    assertEquals(5, tree.ringNode(2, 1));
+    assertEquals(2, tree.depth(4));
+    assertEquals(2, tree.parent(4));
+  }
+
+  @Test public void nodeAt_findsNodesAndGaps() throws Exception {
+    SunburstTree tree = newTree();
+    assertEquals(0, tree.nodeAt(0, 10));
+    assertEquals(1, tree.nodeAt(0, 200));
+    assertEquals(3, tree.nodeAt(1, 100));
+    assertEquals(5, tree.nodeAt(2, 60));
+    assertEquals(4, tree.nodeAt(2, -330));
+    // South has no teams, so the outer rings are empty behind it.
+    assertEquals(-1, tree.nodeAt(1, 200));
+    assertEquals(-1, tree.nodeAt(2, 120));
+  }
+
+  @Test public void nodeAt_matchesLinearScan() throws Exception {
+    Random random = new Random(42);
+    SunburstTree tree = new SunburstTree();
+    for (int i = 0; i < 2000; ++i) {
+      // Each node hangs off a random earlier node, or starts a new region.
+      int parent = i < 5 || random.nextInt(10) == 0 ? SunburstTree.ROOT : random.nextInt(i);
+      tree.add(parent, "n" + i, random.nextInt(5), 0xff000000);
+    }
+    tree.layout();
+    for (int probe = 0; probe < 500; ++probe) {
+      float angle = random.nextFloat() * 360;
+      for (int ring = 0; ring < tree.ringCount(); ++ring) {
+        int expected = -1;
+        for (int k = 0; k < tree.ringSize(ring); ++k) {
+          int node = tree.ringNode(ring, k);
+          if (tree.startAngle(node) <= angle && angle < tree.endAngle(node)) {
+            expected = node;
+          }
+        }
+        assertEquals(expected, tree.nodeAt(ring, angle));
+      }
+    }
+  }
+
+  @Test public void layout_isRequiredAfterChanges() throws Exception {
+    SunburstTree tree = newTree();
+    tree.add(SunburstTree.ROOT, "East", 8, 0);
+    try {
+      tree.ringCount();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    tree.layout();
+    assertEquals(90, tree.sweepAngle(1), 1e-4f);
+  }
+
+  @Test public void set_copiesTheLayoutAndIgnoresLaterChanges() throws Exception {
+    SunburstTree source = newTree();
+    SunburstTree copy = new SunburstTree();
+    copy.add(SunburstTree.ROOT, "Old", 1, 0);
+    copy.set(source);
+
+    source.add(SunburstTree.ROOT, "East", 8, 0);
+    assertEquals(6, copy.size());
+    assertEquals(3, copy.ringCount());
+    assertEquals(180, copy.endAngle(0), 1e-4f);
+    assertEquals(5, copy.nodeAt(2, 60));
+    assertEquals("A2", copy.label(5));
+
+    // The copy can be changed and laid out on its own.
+    copy.add(SunburstTree.ROOT, "West", 8, 0);
+    copy.layout();
+    assertEquals(90, copy.sweepAngle(0), 1e-4f);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void set_rejectsTreesThatAreNotLaidOut() throws Exception {
+    SunburstTree source = new SunburstTree();
+    source.add(SunburstTree.ROOT, "x", 1, 0);
+    new SunburstTree().set(source);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void add_rejectsNegativeValues() throws Exception {
+    new SunburstTree().add(SunburstTree.ROOT, "x", -1, 0);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void add_rejectsUnknownParents() throws Exception {
+    new SunburstTree().add(0, "x", 1, 0);
+  }
+}